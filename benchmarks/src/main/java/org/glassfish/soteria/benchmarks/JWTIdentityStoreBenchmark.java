@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.benchmarks;
+
+import static org.glassfish.soteria.benchmarks.TestKeys.AUDIENCE;
+import static org.glassfish.soteria.benchmarks.TestKeys.ISSUER;
+
+import jakarta.security.enterprise.identitystore.CredentialValidationResult;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.soteria.TokenCredential;
+import org.glassfish.soteria.identitystores.JWTIdentityStore;
+import org.glassfish.soteria.identitystores.jwt.JWTConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validates a signed token end to end, from the raw token to the validation result with the caller's
+ * groups, optionally mapped to roles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JWTIdentityStoreBenchmark {
+
+    @Param({"RSA", "EC"})
+    public String keyType;
+
+    @Param({"0", "50"})
+    public int claims;
+
+    @Param({"1", "50"})
+    public int groups;
+
+    @Param({"false", "true"})
+    public boolean mapGroups;
+
+    @Param({"0", "1000"})
+    public int verifiedTokenCacheSize;
+
+    private JWTIdentityStore identityStore;
+    private TokenCredential credential;
+
+    @Setup
+    public void setUp() {
+        KeyPair keyPair = TestKeys.generate(keyType);
+
+        Map<String, Set<String>> groupToRoles = new HashMap<>();
+        if (mapGroups) {
+            for (int i = 0; i < groups; i++) {
+                groupToRoles.put("group-" + i, Set.of("role-" + i));
+            }
+        }
+
+        identityStore = new JWTIdentityStore(new JWTConfiguration(
+            JWTConfiguration.CONFIG_TOKEN_HEADER_AUTHORIZATION,
+            null,
+            ISSUER,
+            List.of(AUDIENCE),
+            TestKeys.publicKeyPem(keyPair),
+            "",
+            "",
+            "",
+            0,
+            60,
+            Duration.ofMinutes(5),
+            verifiedTokenCacheSize,
+            "groups",
+            groupToRoles,
+            false,
+            null,
+            false,
+            false));
+
+        credential = new TokenCredential(TestKeys.signedToken(keyPair, claims, 16, groups));
+    }
+
+    @Benchmark
+    public CredentialValidationResult validate() {
+        CredentialValidationResult result = identityStore.validate(credential);
+        if (result.getStatus() != CredentialValidationResult.Status.VALID) {
+            throw new IllegalStateException("Token not valid");
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.benchmarks;
+
+import static org.glassfish.soteria.benchmarks.TestKeys.ISSUER;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.soteria.identitystores.jwt.JsonWebTokenImpl;
+import org.glassfish.soteria.identitystores.jwt.keystore.PrivateKeyStore;
+import org.glassfish.soteria.identitystores.jwt.keystore.PublicKeyStore;
+import org.glassfish.soteria.identitystores.jwt.token.JwtTokenParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses and validates signed and encrypted tokens, including the signature verification unless
+ * it's remembered by the verified token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenParserBenchmark {
+
+    @Param({"RSA", "EC"})
+    public String keyType;
+
+    @Param({"0", "10", "50"})
+    public int claims;
+
+    @Param({"16", "256"})
+    public int claimSize;
+
+    @Param({"0", "1000"})
+    public int verifiedTokenCacheSize;
+
+    private JwtTokenParser parser;
+    private PublicKeyStore publicKeyStore;
+    private PrivateKeyStore privateKeyStore;
+
+    private String signedToken;
+    private String encryptedToken;
+
+    @Setup
+    public void setUp() {
+        KeyPair signingKeyPair = TestKeys.generate(keyType);
+        KeyPair encryptionKeyPair = TestKeys.generate(keyType);
+
+        parser = new JwtTokenParser(false, null, false, verifiedTokenCacheSize);
+        publicKeyStore = new PublicKeyStore(Duration.ofMinutes(5), TestKeys.publicKeyPem(signingKeyPair), "");
+        privateKeyStore = new PrivateKeyStore(Duration.ofMinutes(5), TestKeys.temporaryFile(TestKeys.privateKeyPem(encryptionKeyPair)));
+
+        signedToken = TestKeys.signedToken(signingKeyPair, claims, claimSize, 5);
+        encryptedToken = TestKeys.encryptedToken(signingKeyPair, encryptionKeyPair, claims, claimSize, 5);
+    }
+
+    @Benchmark
+    public JsonWebTokenImpl parseSigned() {
+        return parser.parse(signedToken, false, publicKeyStore, ISSUER, privateKeyStore, 0, 60, "");
+    }
+
+    @Benchmark
+    public JsonWebTokenImpl parseEncrypted() {
+        return parser.parse(encryptedToken, true, publicKeyStore, ISSUER, privateKeyStore, 0, 60, "");
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.benchmarks;
+
+import static org.glassfish.soteria.benchmarks.TestKeys.KEY_ID;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.soteria.identitystores.jwt.keystore.KeyParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses public keys from the formats the key location may hold. In a JWKS, the key that is looked
+ * for comes after <code>otherKeys</code> other keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyParserBenchmark {
+
+    @Param({"RSA", "EC"})
+    public String keyType;
+
+    @Param({"PEM", "JWK", "JWKS"})
+    public String format;
+
+    @Param({"0", "9"})
+    public int otherKeys;
+
+    private final KeyParser keyParser = new KeyParser();
+    private String key;
+
+    @Setup
+    public void setUp() {
+        KeyPair keyPair = TestKeys.generate(keyType);
+
+        key = switch (format) {
+            case "PEM" -> TestKeys.publicKeyPem(keyPair);
+            case "JWK" -> TestKeys.jwk(keyPair, KEY_ID).toJSONString();
+            default -> TestKeys.jwks(keyPair, otherKeys);
+        };
+    }
+
+    @Benchmark
+    public PublicKey createPublicKey() {
+        return keyParser.createPublicKey(key, KEY_ID);
+    }
+}
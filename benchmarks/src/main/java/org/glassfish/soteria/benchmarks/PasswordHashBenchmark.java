@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.benchmarks;
+
+import jakarta.security.enterprise.identitystore.PasswordHash;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.soteria.identitystores.hash.BCryptPasswordHash;
+import org.glassfish.soteria.identitystores.hash.Pbkdf2PasswordHashImpl;
+import org.glassfish.soteria.identitystores.hash.ScryptPasswordHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of verifying a password with each password hash at its default parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    private static final char[] PASSWORD = "correct horse battery staple".toCharArray();
+
+    @Param({"Pbkdf2", "BCrypt", "Scrypt"})
+    public String algorithm;
+
+    private PasswordHash passwordHash;
+    private String hashedPassword;
+
+    @Setup
+    public void setUp() {
+        passwordHash = switch (algorithm) {
+            case "Pbkdf2" -> new Pbkdf2PasswordHashImpl();
+            case "BCrypt" -> new BCryptPasswordHash();
+            case "Scrypt" -> new ScryptPasswordHash();
+            default -> throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+        };
+
+        passwordHash.initialize(Map.of());
+        hashedPassword = passwordHash.generate(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return passwordHash.verify(PASSWORD, hashedPassword);
+    }
+}
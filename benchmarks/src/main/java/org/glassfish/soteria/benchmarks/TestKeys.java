@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.benchmarks;
+
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEEncrypter;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.ECDHEncrypter;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSAEncrypter;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Creates the keys and tokens the benchmarks work with.
+ */
+final class TestKeys {
+
+    static final String ISSUER = "https://issuer.example.com";
+    static final String AUDIENCE = "benchmarks";
+    static final String KEY_ID = "key-0";
+
+    private TestKeys() {}
+
+    static KeyPair generate(String keyType) {
+        try {
+            if ("RSA".equals(keyType)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                return generator.generateKeyPair();
+            }
+
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String publicKeyPem(KeyPair keyPair) {
+        return pem("PUBLIC KEY", keyPair.getPublic());
+    }
+
+    static String privateKeyPem(KeyPair keyPair) {
+        return pem("PRIVATE KEY", keyPair.getPrivate());
+    }
+
+    static JWK jwk(KeyPair keyPair, String keyId) {
+        if (keyPair.getPublic() instanceof RSAPublicKey rsaPublicKey) {
+            return new RSAKey.Builder(rsaPublicKey).keyID(keyId).build();
+        }
+
+        return new ECKey.Builder(Curve.P_256, (ECPublicKey) keyPair.getPublic()).keyID(keyId).build();
+    }
+
+    /**
+     * @return a key set with the public key of the given pair under {@link #KEY_ID} as its last key,
+     *         preceded by <code>otherKeys</code> generated keys
+     */
+    static String jwks(KeyPair keyPair, int otherKeys) {
+        List<JWK> keys = new ArrayList<>();
+        for (int i = 1; i <= otherKeys; i++) {
+            keys.add(jwk(generate(keyPair.getPublic().getAlgorithm()), "key-" + i));
+        }
+        keys.add(jwk(keyPair, KEY_ID));
+
+        return new JWKSet(keys).toString();
+    }
+
+    /**
+     * @param claims the number of custom claims in addition to the registered ones
+     * @param claimSize the length of the value of each custom claim
+     * @param groups the number of groups
+     */
+    static String signedToken(KeyPair keyPair, int claims, int claimSize, int groups) {
+        try {
+            return sign(keyPair, claimsSet(claims, claimSize, groups)).serialize();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String encryptedToken(KeyPair signingKeyPair, KeyPair encryptionKeyPair, int claims, int claimSize, int groups) {
+        try {
+            JWEAlgorithm algorithm;
+            JWEEncrypter encrypter;
+            if (encryptionKeyPair.getPublic() instanceof RSAPublicKey rsaPublicKey) {
+                algorithm = JWEAlgorithm.RSA_OAEP_256;
+                encrypter = new RSAEncrypter(rsaPublicKey);
+            } else {
+                algorithm = JWEAlgorithm.ECDH_ES;
+                encrypter = new ECDHEncrypter((ECPublicKey) encryptionKeyPair.getPublic());
+            }
+
+            JWEObject jwe = new JWEObject(
+                new JWEHeader.Builder(algorithm, EncryptionMethod.A256GCM).contentType("JWT").keyID(KEY_ID).build(),
+                new Payload(sign(signingKeyPair, claimsSet(claims, claimSize, groups))));
+            jwe.encrypt(encrypter);
+
+            return jwe.serialize();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the location of a temporary file with the given content, for the key stores that only read from a location
+     */
+    static String temporaryFile(String content) {
+        try {
+            Path file = Files.createTempFile("soteria-benchmark", ".pem");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, content);
+
+            return file.toUri().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SignedJWT sign(KeyPair keyPair, JWTClaimsSet claimsSet) throws JOSEException {
+        JWSAlgorithm algorithm;
+        JWSSigner signer;
+        if (keyPair.getPrivate() instanceof RSAPrivateKey rsaPrivateKey) {
+            algorithm = JWSAlgorithm.RS256;
+            signer = new RSASSASigner(rsaPrivateKey);
+        } else {
+            algorithm = JWSAlgorithm.ES256;
+            signer = new ECDSASigner((ECPrivateKey) keyPair.getPrivate());
+        }
+
+        SignedJWT signedJWT = new SignedJWT(
+            new JWSHeader.Builder(algorithm).type(JOSEObjectType.JWT).keyID(KEY_ID).build(),
+            claimsSet);
+        signedJWT.sign(signer);
+
+        return signedJWT;
+    }
+
+    private static JWTClaimsSet claimsSet(int claims, int claimSize, int groups) {
+        Instant now = Instant.now();
+
+        List<String> groupNames = new ArrayList<>();
+        for (int i = 0; i < groups; i++) {
+            groupNames.add("group-" + i);
+        }
+
+        JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder()
+            .issuer(ISSUER)
+            .subject("subject")
+            .audience(AUDIENCE)
+            .issueTime(Date.from(now))
+            .expirationTime(Date.from(now.plusSeconds(24 * 60 * 60)))
+            .claim("upn", "caller@example.com")
+            .claim("groups", groupNames);
+
+        String value = "x".repeat(claimSize);
+        for (int i = 0; i < claims; i++) {
+            builder.claim("claim-" + i, value);
+        }
+
+        return builder.build();
+    }
+
+    private static String pem(String type, Key key) {
+        return
+            "-----BEGIN " + type + "-----\n" +
+            Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(key.getEncoded()) +
+            "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.mechanisms;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Takes the token from the request headers the way {@link JWTAuthenticationMechanism} does. Lives in
+ * the package of the mechanism, since the scanner isn't public. The token is placed after
+ * <code>otherCookies</code> other cookies in the cookie header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BearerTokenScannerBenchmark {
+
+    private static final String COOKIE_NAME = "Bearer";
+
+    @Param({"512", "4096"})
+    public int tokenSize;
+
+    @Param({"0", "10"})
+    public int otherCookies;
+
+    private String authorizationHeader;
+    private String cookieHeader;
+
+    @Setup
+    public void setUp() {
+        String token = "x".repeat(tokenSize);
+
+        authorizationHeader = "Bearer " + token;
+
+        StringBuilder cookies = new StringBuilder();
+        for (int i = 0; i < otherCookies; i++) {
+            cookies.append("cookie-").append(i).append("=value-").append(i).append("; ");
+        }
+        cookieHeader = cookies.append(COOKIE_NAME).append('=').append(token).toString();
+    }
+
+    @Benchmark
+    public String fromAuthorizationHeader() {
+        return BearerTokenScanner.fromAuthorizationHeader(authorizationHeader);
+    }
+
+    @Benchmark
+    public String fromCookieHeader() {
+        return BearerTokenScanner.fromCookieHeader(cookieHeader, COOKIE_NAME);
+    }
+}
@@ -27,6 +27,7 @@ module org.glassfish.soteria {
     exports org.glassfish.soteria.cdi.spi.impl;
     exports org.glassfish.soteria.identitystores;
     exports org.glassfish.soteria.identitystores.hash;
+    exports org.glassfish.soteria.identitystores.introspection;
     exports org.glassfish.soteria.mechanisms;
     exports org.glassfish.soteria.mechanisms.jaspic;
     exports org.glassfish.soteria.mechanisms.openid;
@@ -70,5 +71,6 @@ module org.glassfish.soteria {
     requires jakarta.xml.bind;
     requires java.logging;
     requires java.naming;
+    requires java.net.http;
     requires static java.sql;
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.cdi;
+
+import static org.glassfish.soteria.cdi.CdiUtils.getBeanManager;
+
+import java.lang.annotation.Annotation;
+import java.util.function.Supplier;
+
+import jakarta.enterprise.inject.spi.Bean;
+import jakarta.enterprise.inject.spi.BeanManager;
+
+/**
+ * A reference to a bean that is resolved once, on first use, instead of on every call.
+ *
+ * <p>
+ * For a bean with a normal scope, such as <code>@ApplicationScoped</code>, the contextual reference
+ * is a client proxy that always delegates to the current instance, so the reference itself is kept.
+ * For a pseudo-scoped bean only the resolved {@link Bean} is kept, and a new reference is obtained
+ * on every call, just as {@link CdiUtils#getBeanReference(Class, Annotation...)} would.
+ *
+ * @param <T> the bean type
+ */
+public final class BeanReference<T> implements Supplier<T> {
+
+    private final Class<T> type;
+    private final Annotation[] qualifiers;
+
+    private volatile Supplier<T> reference;
+
+    public BeanReference(Class<T> type, Annotation... qualifiers) {
+        this.type = type;
+        this.qualifiers = qualifiers;
+    }
+
+    /**
+     * @return a reference to the bean
+     * @throws IllegalStateException if there is no bean of the type with the qualifiers
+     */
+    @Override
+    public T get() {
+        Supplier<T> current = reference;
+        if (current == null) {
+            // Resolving twice when called concurrently the first time does no harm
+            current = resolve();
+            reference = current;
+        }
+
+        return current.get();
+    }
+
+    private Supplier<T> resolve() {
+        BeanManager beanManager = getBeanManager();
+
+        Bean<?> bean = beanManager.resolve(beanManager.getBeans(type, qualifiers));
+        if (bean == null) {
+            throw new IllegalStateException("No bean found for type " + type.getName());
+        }
+
+        if (beanManager.isNormalScope(bean.getScope())) {
+            T proxy = getReference(beanManager, bean);
+            return () -> proxy;
+        }
+
+        return () -> getReference(beanManager, bean);
+    }
+
+    private T getReference(BeanManager beanManager, Bean<?> bean) {
+        return type.cast(beanManager.getReference(bean, type, beanManager.createCreationalContext(bean)));
+    }
+}
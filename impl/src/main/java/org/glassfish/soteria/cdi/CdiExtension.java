@@ -49,11 +49,14 @@ import jakarta.security.enterprise.identitystore.InMemoryIdentityStoreDefinition
 import jakarta.security.enterprise.identitystore.LdapIdentityStoreDefinition;
 
 import java.lang.annotation.Annotation;
+import java.net.URI;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -69,7 +72,11 @@ import org.glassfish.soteria.identitystores.DatabaseIdentityStore;
 import org.glassfish.soteria.identitystores.InMemoryIdentityStore;
 import org.glassfish.soteria.identitystores.JWTIdentityStore;
 import org.glassfish.soteria.identitystores.LdapIdentityStore;
+import org.glassfish.soteria.identitystores.TokenIntrospectionIdentityStore;
+import org.glassfish.soteria.identitystores.hash.BCryptPasswordHash;
 import org.glassfish.soteria.identitystores.hash.Pbkdf2PasswordHashImpl;
+import org.glassfish.soteria.identitystores.hash.ScryptPasswordHash;
+import org.glassfish.soteria.identitystores.introspection.IntrospectionConfiguration;
 import org.glassfish.soteria.identitystores.jwt.JWTConfiguration;
 import org.glassfish.soteria.mechanisms.BasicAuthenticationMechanism;
 import org.glassfish.soteria.mechanisms.CustomFormAuthenticationMechanism;
@@ -87,6 +94,7 @@ import org.glassfish.soteria.mechanisms.openid.controller.StateController;
 import org.glassfish.soteria.mechanisms.openid.controller.TokenController;
 import org.glassfish.soteria.mechanisms.openid.controller.UserInfoController;
 import org.glassfish.soteria.mechanisms.openid.domain.OpenIdContextImpl;
+import org.glassfish.soteria.utils.SystemProperties;
 
 import static java.util.Collections.addAll;
 import static java.util.stream.Collectors.joining;
@@ -116,6 +124,8 @@ public class CdiExtension implements Extension {
             SecurityContextImpl.class,
             IdentityStoreHandler.class,
             Pbkdf2PasswordHashImpl.class,
+            ScryptPasswordHash.class,
+            BCryptPasswordHash.class,
 
             // OpenID types
             AuthenticationController.class,
@@ -186,6 +196,7 @@ public class CdiExtension implements Extension {
                     .create(e -> new LdapIdentityStore(
                         LdapIdentityStoreDefinitionAnnotationLiteral.eval(
                             ldapIdentityStoreDefinition)))
+                    .destroy(identityStore -> ((LdapIdentityStore) identityStore).destroy())
             );
         });
 
@@ -271,6 +282,7 @@ public class CdiExtension implements Extension {
 
             identityStoreBeans.add(new CdiProducer<IdentityStore>()
                     .scope(ApplicationScoped.class)
+                    .beanClass(OpenIdIdentityStore.class)
                     .types(IdentityStore.class)
                     .addToId(OpenIdIdentityStore.class)
                     .create(e -> getBeanReference(OpenIdIdentityStore.class))
@@ -367,11 +379,24 @@ public class CdiExtension implements Extension {
 
         identityStoreBeans.add(new CdiProducer<IdentityStore>()
                 .scope(ApplicationScoped.class)
+                .beanClass(JWTIdentityStore.class)
                 .types(IdentityStore.class)
                 .addToId(OpenIdIdentityStore.class)
                 .create(e -> new JWTIdentityStore(config))
         );
 
+        // Opaque tokens can't be validated locally; they are validated by an introspection endpoint if one is configured
+        var introspectionConfig = getIntrospectionConfiguration();
+        if (introspectionConfig != null) {
+            identityStoreBeans.add(new CdiProducer<IdentityStore>()
+                    .scope(ApplicationScoped.class)
+                    .beanClass(TokenIntrospectionIdentityStore.class)
+                    .types(IdentityStore.class)
+                    .addToId(TokenIntrospectionIdentityStore.class)
+                    .create(e -> new TokenIntrospectionIdentityStore(introspectionConfig))
+            );
+        }
+
     }
 
     private void createOpenIdAuthenticationMechanismBean(OpenIdAuthenticationMechanismDefinition openIdAuthenticationMechanismDefinition, Class<?> beanClass) {
@@ -396,6 +421,10 @@ public class CdiExtension implements Extension {
                 mechanismDefinition.tokenAge(),
                 mechanismDefinition.clockSkew(),
                 Duration.ofSeconds(mechanismDefinition.keyCacheTTL()),
+                SystemProperties.getInt("jwt.verifiedTokenCacheSize", 0),
+
+                SystemProperties.getString("jwt.groupsClaim", "groups"),
+                getGroupToRoles(SystemProperties.getString("jwt.groupToRoles", "")),
 
                 mechanismDefinition.enableNamespace(),
                 mechanismDefinition.customNamespace(),
@@ -403,6 +432,50 @@ public class CdiExtension implements Extension {
                 false);
     }
 
+    private static Map<String, Set<String>> getGroupToRoles(String mapping) {
+        Map<String, Set<String>> groupToRoles = new HashMap<>();
+
+        for (String pair : mapping.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+
+            int equals = pair.indexOf('=');
+            if (equals <= 0 || equals == pair.length() - 1) {
+                throw new IllegalStateException("Invalid group to role mapping '" + pair + "', expected group=role");
+            }
+
+            groupToRoles.computeIfAbsent(pair.substring(0, equals).trim(), group -> new HashSet<>())
+                        .add(pair.substring(equals + 1).trim());
+        }
+
+        return groupToRoles;
+    }
+
+    private IntrospectionConfiguration getIntrospectionConfiguration() {
+        String endpoint = SystemProperties.getString("introspection.endpoint", null);
+        if (endpoint == null || endpoint.isBlank()) {
+            return null;
+        }
+
+        return new IntrospectionConfiguration(
+                URI.create(endpoint.trim()),
+                SystemProperties.getString("introspection.clientId", null),
+                SystemProperties.getString("introspection.clientSecret", null),
+
+                SystemProperties.getSeconds("introspection.connectTimeout", Duration.ofSeconds(5)),
+                SystemProperties.getSeconds("introspection.readTimeout", Duration.ofSeconds(5)),
+
+                SystemProperties.getSeconds("introspection.maxCacheTtl", Duration.ofMinutes(1)),
+                SystemProperties.getSeconds("introspection.negativeCacheTtl", Duration.ofSeconds(10)),
+                SystemProperties.getInt("introspection.cacheSize", 10000),
+
+                SystemProperties.getString("introspection.callerNameClaim", "username"),
+                SystemProperties.getString("introspection.groupsClaim", "groups"),
+                SystemProperties.getBoolean("introspection.skipJwt", true),
+                SystemProperties.getInt("introspection.priority", 90));
+    }
+
     /**
      * Collects all roles referenced via {@code @RolesAllowed} so they can be declared later.
      */
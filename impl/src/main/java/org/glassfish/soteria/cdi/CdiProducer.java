@@ -26,6 +26,7 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import jakarta.enterprise.context.Dependent;
@@ -45,6 +46,7 @@ public class CdiProducer<T> implements Bean<T>, PassivationCapable {
     private Set<Annotation> qualifiers = unmodifiableSet(asSet(new DefaultAnnotationLiteral(), new AnyAnnotationLiteral()));
     private Class<? extends Annotation> scope = Dependent.class;
     private Function<CreationalContext<T>, T> create;
+    private Consumer<T> destroy;
 
     @Override
     public String getId() {
@@ -83,6 +85,9 @@ public class CdiProducer<T> implements Bean<T>, PassivationCapable {
 
     @Override
     public void destroy(T instance, CreationalContext<T> creationalContext) {
+        if (destroy != null) {
+            destroy.accept(instance);
+        }
     }
 
     @Override
@@ -114,6 +119,11 @@ public class CdiProducer<T> implements Bean<T>, PassivationCapable {
         return this;
     }
 
+    protected CdiProducer<T> destroy(Consumer<T> destroy) {
+        this.destroy = destroy;
+        return this;
+    }
+
     protected CdiProducer<T> beanClass(Class<?> beanClass) {
         this.beanClass = beanClass;
         return this;
@@ -27,8 +27,10 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
@@ -184,6 +186,20 @@ public class CdiUtils {
         return result;
     }
 
+    public static <T> Map<Bean<?>, T> getBeanReferencesByBean(Class<T> type, boolean optional) {
+        BeanManager beanManager =  getBeanManager();
+
+        Set<Bean<?>> beans = getBeanDefinitions(type, optional, beanManager);
+
+        Map<Bean<?>, T> result = new LinkedHashMap<>(beans.size());
+
+        for (Bean<?> bean : beans) {
+            result.put(bean, getContextualReference(type, beanManager, Collections.singleton(bean)));
+        }
+
+        return result;
+    }
+
     public static <T> T getBeanReferenceByType(Class<T> type, boolean optional) {
         BeanManager beanManager =  getBeanManager();
 
@@ -24,8 +24,13 @@ import static jakarta.security.enterprise.identitystore.CredentialValidationResu
 import static jakarta.security.enterprise.identitystore.IdentityStore.ValidationType.PROVIDE_GROUPS;
 import static jakarta.security.enterprise.identitystore.IdentityStore.ValidationType.VALIDATE;
 import static java.util.Comparator.comparing;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
 import static java.util.stream.Collectors.toList;
-import static org.glassfish.soteria.cdi.CdiUtils.getBeanReferencesByType;
+import static org.glassfish.soteria.cdi.CdiUtils.getBeanReferencesByBean;
+import static org.glassfish.soteria.cdi.CdiUtils.jndiLookup;
+import static org.glassfish.soteria.utils.ExecutorServices.newThreadPerTaskExecutor;
+import static org.glassfish.soteria.utils.ExecutorServices.withContextClassLoader;
+import static org.glassfish.soteria.utils.Utils.isEmpty;
 
 import jakarta.security.enterprise.credential.Credential;
 import jakarta.security.enterprise.identitystore.CredentialValidationResult;
@@ -34,18 +39,62 @@ import jakarta.security.enterprise.identitystore.IdentityStoreHandler;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import javax.naming.NamingException;
+
+import org.glassfish.soteria.identitystores.CachingIdentityStore;
+import org.glassfish.soteria.utils.SystemProperties;
 
 
 /**
+ * The default handler, which asks the identity stores in order of their priority.
+ *
+ * <p>
+ * Two opt-in modes let the handler query identity stores concurrently:
+ * <ul>
+ * <li><code>org.glassfish.soteria.identityStoreHandler.parallelGroups</code> - ask all stores that
+ * only provide groups at the same time.
+ * <li><code>org.glassfish.soteria.identityStoreHandler.parallelValidation</code> - validate the
+ * credential with all validating stores at the same time. The result is still taken from the
+ * store with the highest priority that returned a valid result, but every store sees the
+ * credential, even when a store with a higher priority already validated it.
+ * </ul>
  *
+ * <p>
+ * The concurrent calls run on the executor found in JNDI under the name given by
+ * <code>org.glassfish.soteria.identityStoreHandler.executor</code>, for instance a managed
+ * executor that makes the application's naming context available to the stores. Without
+ * this setting, they run on the container's default managed executor service, and when there
+ * is none on virtual threads if available.
+ *
+ * <p>
+ * Identity stores for which caching has been configured are wrapped in a
+ * {@link CachingIdentityStore}.
  */
 public class DefaultIdentityStoreHandler implements IdentityStoreHandler {
 
+    private static final Logger LOGGER = Logger.getLogger(DefaultIdentityStoreHandler.class.getName());
+
+    private static final String DEFAULT_MANAGED_EXECUTOR = "java:comp/DefaultManagedExecutorService";
+
     private List<IdentityStore> authenticationIdentityStores;
     private List<IdentityStore> authorizationIdentityStores;
 
+    private boolean parallelValidation;
+    private boolean parallelGroups;
+    private Executor executor;
+
     public void init() {
-    	List<IdentityStore> identityStores = getBeanReferencesByType(IdentityStore.class, false);
+    	List<IdentityStore> identityStores = getBeanReferencesByBean(IdentityStore.class, false)
+    												 .entrySet()
+    												 .stream()
+    												 .map(e -> CachingIdentityStore.wrapIfConfigured(e.getKey(), e.getValue()))
+    												 .collect(toList());
 
     	authenticationIdentityStores = identityStores.stream()
     												 .filter(i -> i.validationTypes().contains(VALIDATE))
@@ -56,6 +105,18 @@ public class DefaultIdentityStoreHandler implements IdentityStoreHandler {
 				 									.filter(i -> i.validationTypes().contains(PROVIDE_GROUPS) && !i.validationTypes().contains(VALIDATE))
 		 											.sorted(comparing(IdentityStore::priority))
 	 												.collect(toList());
+
+        parallelValidation =
+            SystemProperties.getBoolean("identityStoreHandler.parallelValidation", false) &&
+            authenticationIdentityStores.size() > 1;
+
+        parallelGroups =
+            SystemProperties.getBoolean("identityStoreHandler.parallelGroups", false) &&
+            authorizationIdentityStores.size() > 1;
+
+        if (parallelValidation || parallelGroups) {
+            executor = createExecutor();
+        }
     }
 
     @Override
@@ -65,9 +126,21 @@ public class DefaultIdentityStoreHandler implements IdentityStoreHandler {
         IdentityStore identityStore = null;
         boolean isGotAnInvalidResult = false;
 
+        // When racing the stores, all of them are already validating the credential here
+        List<CompletableFuture<CredentialValidationResult>> pendingResults = null;
+        if (parallelValidation) {
+            pendingResults = authenticationIdentityStores.stream()
+                                                        .map(store -> submit(() -> store.validate(credential)))
+                                                        .collect(toList());
+        }
+
         // Check stores to authenticate until one succeeds.
-        for (IdentityStore authenticationIdentityStore : authenticationIdentityStores) {
-            validationResult = authenticationIdentityStore.validate(credential);
+        for (int i = 0; i < authenticationIdentityStores.size(); i++) {
+            IdentityStore authenticationIdentityStore = authenticationIdentityStores.get(i);
+            validationResult = pendingResults != null ?
+                join(pendingResults.get(i)) :
+                authenticationIdentityStore.validate(credential);
+
             if (validationResult.getStatus() == VALID) {
                 identityStore = authenticationIdentityStore;
                 break;
@@ -77,6 +150,11 @@ public class DefaultIdentityStoreHandler implements IdentityStoreHandler {
             }
         }
 
+        if (pendingResults != null) {
+            // Results of stores with a lower priority are not needed anymore
+            pendingResults.forEach(pendingResult -> pendingResult.cancel(false));
+        }
+
         if (validationResult == null || validationResult.getStatus() != VALID) {
             // Didn't get a VALID result. If we got an INVALID result at any point,
             // return INVALID_RESULT. Otherwise, return NOT_VALIDATED_RESULT.
@@ -97,8 +175,21 @@ public class DefaultIdentityStoreHandler implements IdentityStoreHandler {
 
         // Ask all stores that were configured for group providing only to get the groups for the
         // authenticated caller
-        for (IdentityStore authorizationIdentityStore : authorizationIdentityStores) {
-            groups.addAll(authorizationIdentityStore.getCallerGroups(validationResult));
+        if (parallelGroups) {
+            CredentialValidationResult validResult = validationResult;
+            List<CompletableFuture<Set<String>>> pendingGroups =
+                authorizationIdentityStores.stream()
+                                           .map(store -> submit(() -> store.getCallerGroups(validResult)))
+                                           .collect(toList());
+
+            for (CompletableFuture<Set<String>> storeGroups : pendingGroups) {
+                groups.addAll(join(storeGroups));
+            }
+        }
+        else {
+            for (IdentityStore authorizationIdentityStore : authorizationIdentityStores) {
+                groups.addAll(authorizationIdentityStore.getCallerGroups(validationResult));
+            }
         }
 
         return new CredentialValidationResult(
@@ -109,4 +200,48 @@ public class DefaultIdentityStoreHandler implements IdentityStoreHandler {
                 groups);
     }
 
+    private <T> CompletableFuture<T> submit(Supplier<T> supplier) {
+        return supplyAsync(withContextClassLoader(supplier), executor);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+
+            throw e;
+        }
+    }
+
+    private static Executor createExecutor() {
+        String executorName = SystemProperties.getString("identityStoreHandler.executor", null);
+        if (isEmpty(executorName)) {
+            try {
+                return jndiLookup(DEFAULT_MANAGED_EXECUTOR);
+            }
+            catch (NamingException e) {
+                LOGGER.warning(
+                    "Identity stores are queried in parallel, but no managed executor is available at " + DEFAULT_MANAGED_EXECUTOR +
+                    "; they run on unmanaged threads, without the application's naming context. " +
+                    "Set org.glassfish.soteria.identityStoreHandler.executor to the JNDI name of a managed executor.");
+
+                return newThreadPerTaskExecutor("soteria-identity-store");
+            }
+        }
+
+        try {
+            return jndiLookup(executorName);
+        }
+        catch (NamingException e) {
+            throw new IllegalStateException("Could not find the executor for the identity store handler: " + executorName, e);
+        }
+    }
+
 }
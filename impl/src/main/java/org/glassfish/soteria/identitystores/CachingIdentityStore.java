@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.soteria.identitystores;
+
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.Status.VALID;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import jakarta.enterprise.inject.spi.Bean;
+import jakarta.security.enterprise.credential.CallerOnlyCredential;
+import jakarta.security.enterprise.credential.Credential;
+import jakarta.security.enterprise.credential.BasicAuthenticationCredential;
+import jakarta.security.enterprise.credential.UsernamePasswordCredential;
+import jakarta.security.enterprise.identitystore.CredentialValidationResult;
+import jakarta.security.enterprise.identitystore.IdentityStore;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.glassfish.soteria.TokenCredential;
+import org.glassfish.soteria.identitystores.jwt.JsonWebTokenImpl;
+import org.glassfish.soteria.utils.ExpiringCache;
+import org.glassfish.soteria.utils.ExpiringCache.EvictionPolicy;
+import org.glassfish.soteria.utils.SystemProperties;
+
+/**
+ * Wraps an identity store and remembers its valid results and the groups it provided.
+ *
+ * <p>
+ * Validation results are keyed by an HMAC of the credential under a random key that never leaves
+ * this instance, so neither passwords nor tokens are kept in memory. Only credentials of a known
+ * type are cached; only {@link CredentialValidationResult.Status#VALID VALID} results are kept.
+ * As a consequence, a changed password or revoked token is honoured by the wrapped store only
+ * once the remembered result has expired.
+ *
+ * <p>
+ * The result for a {@link TokenCredential} is only remembered when the store returned the verified
+ * token as caller principal, and never beyond the expiration time of the token. Remember-me tokens,
+ * which expire in the store that issued them, are not cached.
+ *
+ * <p>
+ * A store is configured with the following system properties, where <code>&lt;store&gt;</code> is
+ * the simple class name of the store, e.g. <code>DatabaseIdentityStore</code>. Each property falls
+ * back to the same property without the store name, which applies to all stores.
+ * <ul>
+ * <li><code>org.glassfish.soteria.identityStoreCache.&lt;store&gt;.ttl</code> - seconds to remember a
+ * valid result, 0 (the default) disables caching. The TTL for a single credential type can be set
+ * by appending its simple class name, e.g. <code>.ttl.BasicAuthenticationCredential</code>.
+ * <li><code>org.glassfish.soteria.identityStoreCache.&lt;store&gt;.groupsTtl</code> - seconds to
+ * remember the groups of a caller, defaults to the ttl.
+ * <li><code>org.glassfish.soteria.identityStoreCache.&lt;store&gt;.maxSize</code> - maximum number of
+ * remembered results and of remembered callers, defaults to 1000.
+ * <li><code>org.glassfish.soteria.identityStoreCache.&lt;store&gt;.evictionPolicy</code> -
+ * <code>LRU</code> (the default) or <code>FIFO</code>.
+ * </ul>
+ */
+public class CachingIdentityStore implements IdentityStore {
+
+    private static final Logger LOGGER = Logger.getLogger(CachingIdentityStore.class.getName());
+
+    private static final String PREFIX = "identityStoreCache.";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final List<Class<? extends Credential>> CACHED_CREDENTIAL_TYPES = List.of(
+        UsernamePasswordCredential.class,
+        BasicAuthenticationCredential.class,
+        CallerOnlyCredential.class,
+        TokenCredential.class);
+
+    private final IdentityStore identityStore;
+    private final String storeName;
+
+    private final Duration timeToLive;
+    private final Duration groupsTimeToLive;
+    private final Map<Class<?>, Duration> credentialTimeToLives = new ConcurrentHashMap<>();
+    private final ExpiringCache<ByteBuffer, CredentialValidationResult> validationResults;
+    private final ExpiringCache<String, Set<String>> callerGroups;
+
+    private final SecretKeySpec credentialKey;
+    private final Mac credentialMac; // initialized with the credential key, cloned for every credential
+
+    /**
+     * Wraps the given store if caching has been configured for it.
+     *
+     * @param identityStore the store to wrap
+     * @return the caching store, or the given store if there's nothing to cache
+     */
+    public static IdentityStore wrapIfConfigured(IdentityStore identityStore) {
+        return wrapIfConfigured(identityStore, getStoreName(identityStore));
+    }
+
+    /**
+     * Wraps the given reference to the given bean if caching has been configured for it.
+     *
+     * <p>
+     * The reference is typically a client proxy, so the store is named after the bean instead of
+     * after the class of the reference.
+     *
+     * @param bean the bean of the store
+     * @param identityStore the store to wrap
+     * @return the caching store, or the given store if there's nothing to cache
+     */
+    public static IdentityStore wrapIfConfigured(Bean<?> bean, IdentityStore identityStore) {
+        return wrapIfConfigured(identityStore, getStoreName(bean));
+    }
+
+    private static IdentityStore wrapIfConfigured(IdentityStore identityStore, String storeName) {
+        Duration timeToLive = getSeconds(storeName, "ttl", Duration.ZERO);
+        Duration groupsTimeToLive = getSeconds(storeName, "groupsTtl", timeToLive);
+
+        // A TTL for a single credential type is only honoured if the store has a TTL at all
+        if (isPositive(timeToLive) || isPositive(groupsTimeToLive)) {
+            LOGGER.info(() -> "Caching results of identity store " + storeName);
+            return new CachingIdentityStore(identityStore, storeName, timeToLive, groupsTimeToLive);
+        }
+
+        return identityStore;
+    }
+
+    public CachingIdentityStore(IdentityStore identityStore, String storeName, Duration timeToLive, Duration groupsTimeToLive) {
+        this.identityStore = identityStore;
+        this.storeName = storeName;
+        this.timeToLive = timeToLive;
+        this.groupsTimeToLive = groupsTimeToLive;
+
+        int maxSize = getInt(storeName, "maxSize", 1000);
+        EvictionPolicy evictionPolicy = getEvictionPolicy(storeName);
+
+        validationResults = new ExpiringCache<>(maxSize, evictionPolicy);
+        callerGroups = new ExpiringCache<>(maxSize, evictionPolicy);
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        credentialKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        credentialMac = newMac(credentialKey);
+
+        // Looked up for every credential, so read from the system properties only once
+        for (Class<? extends Credential> credentialType : CACHED_CREDENTIAL_TYPES) {
+            credentialTimeToLives.put(credentialType, readTimeToLive(credentialType));
+        }
+    }
+
+    @Override
+    public CredentialValidationResult validate(Credential credential) {
+        Duration credentialTimeToLive = getTimeToLive(credential);
+
+        ByteBuffer key = isPositive(credentialTimeToLive) ? credentialKey(credential) : null;
+        if (key == null) {
+            return identityStore.validate(credential);
+        }
+
+        CredentialValidationResult result = validationResults.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        result = identityStore.validate(credential);
+        if (result.getStatus() == VALID) {
+            Duration resultTimeToLive = limitToExpiry(credential, result, credentialTimeToLive);
+            if (isPositive(resultTimeToLive)) {
+                validationResults.put(key, result, resultTimeToLive);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public Set<String> getCallerGroups(CredentialValidationResult validationResult) {
+        String caller = validationResult.getCallerPrincipal() != null ? validationResult.getCallerPrincipal().getName() : null;
+        if (caller == null || !isPositive(groupsTimeToLive)) {
+            return identityStore.getCallerGroups(validationResult);
+        }
+
+        Set<String> groups = callerGroups.get(caller);
+        if (groups == null) {
+            groups = Set.copyOf(identityStore.getCallerGroups(validationResult));
+            callerGroups.put(caller, groups, groupsTimeToLive);
+        }
+
+        return groups;
+    }
+
+    @Override
+    public int priority() {
+        return identityStore.priority();
+    }
+
+    @Override
+    public Set<ValidationType> validationTypes() {
+        return identityStore.validationTypes();
+    }
+
+    /**
+     * Forgets all remembered results, for instance after passwords or group memberships changed.
+     */
+    public void invalidateAll() {
+        validationResults.clear();
+        callerGroups.clear();
+    }
+
+    /**
+     * Forgets the remembered groups and results of a single caller.
+     *
+     * @param caller the name of the caller
+     */
+    public void invalidateCaller(String caller) {
+        callerGroups.remove(caller);
+        validationResults.removeIf((key, result) ->
+            result.getCallerPrincipal() != null && caller.equals(result.getCallerPrincipal().getName()));
+    }
+
+    private Duration getTimeToLive(Credential credential) {
+        Duration credentialTimeToLive = credentialTimeToLives.get(credential.getClass());
+        if (credentialTimeToLive == null) {
+            // A subclass of a known type; looked up once per class
+            credentialTimeToLive = credentialTimeToLives.computeIfAbsent(credential.getClass(), this::readTimeToLive);
+        }
+
+        return credentialTimeToLive;
+    }
+
+    private Duration readTimeToLive(Class<?> credentialType) {
+        return getSeconds(storeName, "ttl." + credentialType.getSimpleName(), timeToLive);
+    }
+
+    /**
+     * @return the time to remember the result, which for a token is never beyond its expiration time;
+     *         zero if the result should not be remembered
+     */
+    private static Duration limitToExpiry(Credential credential, CredentialValidationResult result, Duration credentialTimeToLive) {
+        if (!(credential instanceof TokenCredential)) {
+            return credentialTimeToLive;
+        }
+
+        if (!(result.getCallerPrincipal() instanceof JsonWebTokenImpl jsonWebToken) || jsonWebToken.getExpirationTime() == null) {
+            // Unknown when the token expires
+            return Duration.ZERO;
+        }
+
+        Duration untilExpiry = Duration.ofMillis(jsonWebToken.getExpirationTime() * 1000 - System.currentTimeMillis());
+
+        return untilExpiry.compareTo(credentialTimeToLive) < 0 ? untilExpiry : credentialTimeToLive;
+    }
+
+    /**
+     * @return an HMAC over the type and the secret parts of the credential, or null if the credential
+     *         is of a type that isn't known to be safe to cache
+     */
+    private ByteBuffer credentialKey(Credential credential) {
+        Mac mac;
+        try {
+            mac = (Mac) credentialMac.clone();
+        } catch (CloneNotSupportedException e) {
+            mac = newMac(credentialKey);
+        }
+
+        mac.update(credential.getClass().getName().getBytes(UTF_8));
+
+        if (credential instanceof UsernamePasswordCredential usernamePassword) {
+            update(mac, usernamePassword.getCaller());
+            update(mac, usernamePassword.getPassword().getValue());
+        } else if (credential instanceof CallerOnlyCredential callerOnly) {
+            update(mac, callerOnly.getCaller());
+        } else if (credential instanceof TokenCredential token) {
+            update(mac, token.getSignedJWT());
+        } else {
+            return null;
+        }
+
+        return ByteBuffer.wrap(mac.doFinal());
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(Mac mac, String value) {
+        update(mac, value != null ? value.toCharArray() : null);
+    }
+
+    private static void update(Mac mac, char[] value) {
+        if (value == null) {
+            mac.update((byte) 0);
+            return;
+        }
+
+        // Prefix every part with its length, so that different splits never yield the same input
+        ByteBuffer bytes = UTF_8.encode(CharBuffer.wrap(value));
+        mac.update(ByteBuffer.allocate(5).put((byte) 1).putInt(bytes.remaining()).array());
+        mac.update(bytes);
+
+        if (bytes.hasArray()) {
+            Arrays.fill(bytes.array(), (byte) 0);
+        }
+    }
+
+    private static String getStoreName(IdentityStore identityStore) {
+        // Strip the suffix of generated proxy and subclass names
+        String name = identityStore.getClass().getSimpleName();
+        int proxySuffix = name.indexOf('$');
+
+        return proxySuffix > 0 ? name.substring(0, proxySuffix) : name;
+    }
+
+    private static String getStoreName(Bean<?> bean) {
+        // Use the most specific store class among the bean types; a bean that's only typed as
+        // IdentityStore is named after its bean class
+        Class<?> storeClass = null;
+        for (Type type : bean.getTypes()) {
+            if (type instanceof Class<?> beanType && !beanType.isInterface() && IdentityStore.class.isAssignableFrom(beanType)
+                    && (storeClass == null || storeClass.isAssignableFrom(beanType))) {
+                storeClass = beanType;
+            }
+        }
+
+        return (storeClass != null ? storeClass : bean.getBeanClass()).getSimpleName();
+    }
+
+    private static Duration getSeconds(String storeName, String name, Duration defaultValue) {
+        return SystemProperties.getSeconds(PREFIX + storeName + "." + name, SystemProperties.getSeconds(PREFIX + name, defaultValue));
+    }
+
+    private static int getInt(String storeName, String name, int defaultValue) {
+        return SystemProperties.getInt(PREFIX + storeName + "." + name, SystemProperties.getInt(PREFIX + name, defaultValue));
+    }
+
+    private static EvictionPolicy getEvictionPolicy(String storeName) {
+        String policy = SystemProperties.getString(PREFIX + storeName + ".evictionPolicy", SystemProperties.getString(PREFIX + "evictionPolicy", null));
+        if (policy == null || policy.isBlank()) {
+            return EvictionPolicy.LRU;
+        }
+
+        try {
+            return EvictionPolicy.valueOf(policy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IdentityStoreConfigurationException("Unknown eviction policy " + policy + " for identity store " + storeName);
+        }
+    }
+
+    private static boolean isPositive(Duration duration) {
+        return !duration.isZero() && !duration.isNegative();
+    }
+}
@@ -28,6 +28,7 @@ import static jakarta.security.enterprise.identitystore.CredentialValidationResu
 import static org.glassfish.soteria.cdi.AnnotationELPProcessor.evalImmediate;
 import static org.glassfish.soteria.cdi.CdiUtils.getBeanReference;
 import static org.glassfish.soteria.cdi.CdiUtils.jndiLookup;
+import static org.glassfish.soteria.utils.Utils.isEmpty;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -37,6 +38,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 import jakarta.security.enterprise.CallerPrincipal;
@@ -50,25 +52,38 @@ import jakarta.security.enterprise.identitystore.PasswordHash;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
 
+import org.glassfish.soteria.identitystores.hash.PasswordHashUpgradeSink;
+import org.glassfish.soteria.identitystores.hash.Pbkdf2PasswordHashImpl;
+import org.glassfish.soteria.utils.SystemProperties;
+
 public class DatabaseIdentityStore implements IdentityStore {
 
+    private static final Logger LOGGER = Logger.getLogger(DatabaseIdentityStore.class.getName());
+
     private final DatabaseIdentityStoreDefinition dataBaseIdentityStoreDefinition;
 
     private final Set<ValidationType> validationTypes;
     private final PasswordHash hashAlgorithm; // Note: effectively application scoped, no support for @PreDestroy now
 
+    // When set, the caller query returns the groups of the caller in its second column, one row per group
+    private final boolean callerQueryProvidesGroups;
+
+    private volatile ResolvedDataSource resolvedDataSource;
+
     // CDI requires a no-arg constructor to be portable
     // It's only used to create the proxy
     protected DatabaseIdentityStore() {
         this.dataBaseIdentityStoreDefinition = null;
         this.validationTypes = null;
         this.hashAlgorithm = null;
+        this.callerQueryProvidesGroups = false;
     }
 
     public DatabaseIdentityStore(DatabaseIdentityStoreDefinition dataBaseIdentityStoreDefinition) {
         this.dataBaseIdentityStoreDefinition = dataBaseIdentityStoreDefinition;
 
         validationTypes = unmodifiableSet(new HashSet<>(asList(dataBaseIdentityStoreDefinition.useFor())));
+        callerQueryProvidesGroups = SystemProperties.getBoolean("database.callerQueryProvidesGroups", false);
         hashAlgorithm = getBeanReference(dataBaseIdentityStoreDefinition.hashAlgorithm());
         hashAlgorithm.initialize(
             unmodifiableMap(
@@ -79,6 +94,18 @@ public class DatabaseIdentityStore implements IdentityStore {
                         s -> s.substring(0, s.indexOf('=')) ,
                         s -> evalImmediate(s.substring(s.indexOf('=') + 1))
                     ))));
+
+        // Lets the hash replace stored hashes with outdated parameters, e.g. UPDATE caller SET password = ? WHERE password = ?
+        String passwordUpgradeQuery = SystemProperties.getString("database.passwordUpgradeQuery", null);
+        if (!isEmpty(passwordUpgradeQuery)) {
+            if (hashAlgorithm instanceof Pbkdf2PasswordHashImpl pbkdf2PasswordHash) {
+                pbkdf2PasswordHash.setUpgradeSink(new PasswordUpgradeSink(passwordUpgradeQuery));
+            } else {
+                LOGGER.warning(
+                    "database.passwordUpgradeQuery is set, but passwords are not upgraded as the hash algorithm " +
+                    dataBaseIdentityStoreDefinition.hashAlgorithm().getName() + " is not the built-in Pbkdf2PasswordHash");
+            }
+        }
     }
 
     @Override
@@ -92,55 +119,88 @@ public class DatabaseIdentityStore implements IdentityStore {
 
     public CredentialValidationResult validate(UsernamePasswordCredential usernamePasswordCredential) {
 
-        DataSource dataSource = getDataSource();
+        String caller = usernamePasswordCredential.getCaller();
+        boolean provideGroups = validationTypes.contains(ValidationType.PROVIDE_GROUPS);
+
+        List<String> passwords;
+        Set<String> groups = callerQueryProvidesGroups ? new HashSet<>() : null;
 
-        List<String> passwords = executeQuery(
-            dataSource,
-            dataBaseIdentityStoreDefinition.callerQuery(),
-            usernamePasswordCredential.getCaller()
-        );
+        // Fetch the password, and the groups if the caller query provides them, before the
+        // (deliberately slow) password verification starts, so the connection is given back early.
+        try (Connection connection = getDataSource().getConnection()) {
+            passwords = executeQuery(connection, dataBaseIdentityStoreDefinition.callerQuery(), caller, groups);
+        } catch (SQLException e) {
+            throw new IdentityStoreConfigurationException(e.getMessage(), e);
+        }
 
         if (passwords.isEmpty()) {
             return INVALID_RESULT;
         }
 
-        if (hashAlgorithm.verify(usernamePasswordCredential.getPassword().getValue(), passwords.get(0))) {
-            Set<String> groups = emptySet();
-            if (validationTypes.contains(ValidationType.PROVIDE_GROUPS)) {
-                groups = new HashSet<>(executeQuery(dataSource, dataBaseIdentityStoreDefinition.groupsQuery(), usernamePasswordCredential.getCaller()));
-            }
+        if (!hashAlgorithm.verify(usernamePasswordCredential.getPassword().getValue(), passwords.get(0))) {
+            return INVALID_RESULT;
+        }
 
-            return new CredentialValidationResult(new CallerPrincipal(usernamePasswordCredential.getCaller()), groups);
+        if (!provideGroups) {
+            return new CredentialValidationResult(new CallerPrincipal(caller), emptySet());
         }
 
-        return INVALID_RESULT;
+        // Unless the caller query provided them, the groups are fetched only now, so wrong passwords never cost a groups query
+        return new CredentialValidationResult(new CallerPrincipal(caller), groups != null ? groups : getCallerGroups(caller));
     }
 
     @Override
     public Set<String> getCallerGroups(CredentialValidationResult validationResult) {
-        DataSource dataSource = getDataSource();
+        return getCallerGroups(validationResult.getCallerPrincipal().getName());
+    }
 
-        return new HashSet<>(executeQuery(
-            dataSource,
-            dataBaseIdentityStoreDefinition.groupsQuery(),
-            validationResult.getCallerPrincipal().getName())
-        );
+    private Set<String> getCallerGroups(String caller) {
+        try (Connection connection = getDataSource().getConnection()) {
+            return new HashSet<>(executeQuery(
+                connection,
+                dataBaseIdentityStoreDefinition.groupsQuery(),
+                caller,
+                null)
+            );
+        } catch (SQLException e) {
+            throw new IdentityStoreConfigurationException(e.getMessage(), e);
+        }
     }
 
-    private List<String> executeQuery(DataSource dataSource, String query, String parameter) {
+    private static void upgradePassword(DataSource dataSource, String passwordUpgradeQuery, String outdatedHash, String upgradedHash) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(passwordUpgradeQuery)) {
+            statement.setString(1, upgradedHash);
+            statement.setString(2, outdatedHash);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IdentityStoreRuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Executes the given query and returns the values of the first column. If <code>secondColumn</code>
+     * is not null, the non-null values of the second column are added to it.
+     */
+    private List<String> executeQuery(Connection connection, String query, String parameter, Set<String> secondColumn) throws SQLException {
         List<String> result = new ArrayList<>();
 
-        try (Connection connection = dataSource.getConnection()) {
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                statement.setString(1, parameter);
-                try (ResultSet resultSet = statement.executeQuery()) {
-                    while (resultSet.next()) {
-                        result.add(resultSet.getString(1));
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            // The same few queries are executed over and over; hint the pool to cache them
+            statement.setPoolable(true);
+            statement.setString(1, parameter);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(resultSet.getString(1));
+
+                    if (secondColumn != null) {
+                        String value = resultSet.getString(2);
+                        if (value != null) {
+                            secondColumn.add(value);
+                        }
                     }
                 }
             }
-        } catch (SQLException e) {
-            throw new IdentityStoreConfigurationException(e.getMessage(), e);
         }
 
         return result;
@@ -169,11 +229,50 @@ public class DatabaseIdentityStore implements IdentityStore {
     }
 
     private DataSource getDataSource() {
+        // The lookup name can be a deferred expression, so only reuse the DataSource found for the same name
+        String dataSourceLookup = dataBaseIdentityStoreDefinition.dataSourceLookup();
+
+        ResolvedDataSource resolved = resolvedDataSource;
+        if (resolved != null && resolved.lookup().equals(dataSourceLookup)) {
+            return resolved.dataSource();
+        }
+
         try {
-            return jndiLookup(dataBaseIdentityStoreDefinition.dataSourceLookup());
+            DataSource dataSource = jndiLookup(dataSourceLookup);
+            resolvedDataSource = new ResolvedDataSource(dataSourceLookup, dataSource);
+
+            return dataSource;
         } catch (NamingException e) {
             throw new IdentityStoreRuntimeException(
-                "JNDI lookup failed for DataSource " + dataBaseIdentityStoreDefinition.dataSourceLookup(), e);
+                "JNDI lookup failed for DataSource " + dataSourceLookup, e);
+        }
+    }
+
+    private record ResolvedDataSource(String lookup, DataSource dataSource) {
+    }
+
+    /**
+     * Stores upgraded hashes using the passwordUpgradeQuery. The DataSource is looked up before the
+     * upgrade is handed off, as <code>java:comp</code> is not available on the background thread.
+     */
+    private class PasswordUpgradeSink implements PasswordHashUpgradeSink {
+
+        private final String passwordUpgradeQuery;
+
+        PasswordUpgradeSink(String passwordUpgradeQuery) {
+            this.passwordUpgradeQuery = passwordUpgradeQuery;
+        }
+
+        @Override
+        public void upgrade(String outdatedHash, String upgradedHash) {
+            upgradePassword(getDataSource(), passwordUpgradeQuery, outdatedHash, upgradedHash);
+        }
+
+        @Override
+        public PasswordHashUpgradeSink prepare() {
+            DataSource dataSource = getDataSource();
+
+            return (outdatedHash, upgradedHash) -> upgradePassword(dataSource, passwordUpgradeQuery, outdatedHash, upgradedHash);
         }
     }
 }
@@ -18,8 +18,8 @@ package org.glassfish.soteria.identitystores;
 import jakarta.security.enterprise.identitystore.CredentialValidationResult;
 import jakarta.security.enterprise.identitystore.IdentityStore;
 
-import java.util.Collection;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -42,23 +42,30 @@ public class JWTIdentityStore implements IdentityStore {
 
     private final JWTConfiguration jwtConfiguration;
 
+    // Looked up for every token, so kept in hash based collections
+    private final Set<String> allowedAudience;
+    private final Map<String, Set<String>> groupToRoles;
+
     private final PublicKeyStore publicKeyStore;
     private final PrivateKeyStore privateKeyStore;
+    private final JwtTokenParser jwtTokenParser;
 
     public JWTIdentityStore(JWTConfiguration jwtConfiguration) {
         this.jwtConfiguration = jwtConfiguration;
+        this.allowedAudience = Set.copyOf(jwtConfiguration.allowedAudience());
+        this.groupToRoles = Map.copyOf(jwtConfiguration.groupToRoles());
 
         publicKeyStore = new PublicKeyStore(jwtConfiguration.keyCacheTTL(), jwtConfiguration.publicKey(), jwtConfiguration.publicKeyLocation());
         privateKeyStore = new PrivateKeyStore(jwtConfiguration.keyCacheTTL(), jwtConfiguration.decryptKeyLocation());
+        jwtTokenParser = new JwtTokenParser(
+            jwtConfiguration.enabledNamespace(),
+            jwtConfiguration.customNamespace(),
+            jwtConfiguration.disableTypeVerification(),
+            jwtConfiguration.verifiedTokenCacheSize(),
+            jwtConfiguration.groupsClaim());
     }
 
     public CredentialValidationResult validate(TokenCredential signedJWTCredential) {
-        JwtTokenParser jwtTokenParser =
-                new JwtTokenParser(
-                    jwtConfiguration.enabledNamespace(),
-                    jwtConfiguration.customNamespace(),
-                    jwtConfiguration.disableTypeVerification());
-
         try {
             JsonWebTokenImpl jsonWebToken =
                 jwtTokenParser.parse(
@@ -71,25 +78,13 @@ public class JWTIdentityStore implements IdentityStore {
                     jwtConfiguration.clockSkew(),
                     jwtConfiguration.keyAlgorithm());
 
-            Set<String> recipientsOfThisJWT = jsonWebToken.claimSet("aud");
-
-            Boolean recipientInAudience =
-                jwtConfiguration.allowedAudience().isEmpty() ||
-                jwtConfiguration.allowedAudience()
-                                .stream()
-                                .anyMatch(a -> recipientsOfThisJWT != null && recipientsOfThisJWT.contains(a));
+            Set<String> recipientsOfThisJWT = jsonWebToken.getAudience();
 
-            if (!recipientInAudience) {
+            if (!isRecipientInAudience(recipientsOfThisJWT)) {
                 throw new Exception("The supplied audience " + recipientsOfThisJWT + " is not a part of target audience.");
             }
 
-            Set<String> groups = new HashSet<>();
-            Collection<String> groupClaims = jsonWebToken.claimSet("groups");
-            if (groupClaims != null) {
-                groups.addAll(groupClaims);
-            }
-
-            return new CredentialValidationResult(jsonWebToken, groups);
+            return new CredentialValidationResult(jsonWebToken, mapGroups(jsonWebToken.getGroups()));
 
         } catch (Exception e) {
             LOGGER.log(INFO, "Exception parsing JWT token.", e);
@@ -98,6 +93,48 @@ public class JWTIdentityStore implements IdentityStore {
         return INVALID_RESULT;
     }
 
+    private boolean isRecipientInAudience(Set<String> recipients) {
+        if (allowedAudience.isEmpty()) {
+            return true;
+        }
+
+        if (recipients != null) {
+            for (String recipient : recipients) {
+                if (allowedAudience.contains(recipient)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the groups with mapped groups replaced by their roles; the groups themselves if nothing is mapped
+     */
+    private Set<String> mapGroups(Set<String> groups) {
+        if (groups == null) {
+            return Set.of();
+        }
+
+        if (groupToRoles.isEmpty()) {
+            // The validation result makes its own copy
+            return groups;
+        }
+
+        Set<String> roles = new HashSet<>();
+        for (String group : groups) {
+            Set<String> mappedRoles = groupToRoles.get(group);
+            if (mappedRoles != null) {
+                roles.addAll(mappedRoles);
+            } else {
+                roles.add(group);
+            }
+        }
+
+        return roles;
+    }
+
 
 
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.soteria.identitystores;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+import javax.naming.NamingException;
+import javax.naming.ldap.LdapContext;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.logging.Level.FINE;
+import static java.util.logging.Level.WARNING;
+import static org.glassfish.soteria.utils.ExecutorServices.daemonThreadFactory;
+
+/**
+ * A pool of open {@link LdapContext} instances, each representing an LDAP connection.
+ *
+ * <p>
+ * At most <code>maxSize</code> contexts are handed out at the same time; borrowers wait up to
+ * <code>maxWait</code> for one to become available. Idle contexts are closed once they have been idle
+ * for longer than <code>idleTimeout</code>, except for the <code>minSize</code> most recently used
+ * ones. A context that has been idle for longer than <code>validationInterval</code> is checked by
+ * reading the (empty) attributes of the base entry before it's handed out again.
+ *
+ * <p>
+ * Idle contexts are evicted in the background as well, and when the pool has a factory for idle
+ * contexts, the same background task opens new ones until <code>minSize</code> contexts are open.
+ * Once closed, the pool closes its idle contexts and refuses to hand out new ones.
+ *
+ * <p>
+ * A <code>maxSize</code> of 0 disables pooling: every borrow creates a new context, and every
+ * release closes it.
+ */
+final class LdapContextPool {
+
+    private static final Logger LOGGER = Logger.getLogger(LdapContextPool.class.getName());
+
+    private static final String[] NO_ATTRIBUTES = { "1.1" };
+
+    @FunctionalInterface
+    interface ContextFactory {
+        /**
+         * @return a new context, or null if no context could be created for the given credentials
+         */
+        LdapContext create() throws NamingException;
+    }
+
+    private static class Maintenance {
+        static final ScheduledExecutorService EXECUTOR =
+            Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("soteria-ldap-pool"));
+    }
+
+    private final String name;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final long validationIntervalNanos;
+    private final long maxWaitNanos;
+    private final ContextFactory idleContextFactory;
+
+    private final Semaphore permits;
+    private final Deque<IdleContext> idleContexts = new ArrayDeque<>(); // guarded by this, most recently used first
+    private final ScheduledFuture<?> maintenance;
+    private final Object maintenanceLock = new Object();
+
+    private volatile boolean closed;
+
+    /**
+     * @param idleContextFactory creates the contexts that keep <code>minSize</code> contexts open, or
+     *        null if contexts can only be created by the borrower, e.g. because they're bound as the caller
+     */
+    LdapContextPool(String name, int minSize, int maxSize, Duration idleTimeout, Duration validationInterval, Duration maxWait,
+            ContextFactory idleContextFactory) {
+        this.name = name;
+        this.minSize = Math.max(0, Math.min(minSize, maxSize));
+        this.maxSize = Math.max(0, maxSize);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.validationIntervalNanos = validationInterval.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+        this.idleContextFactory = idleContextFactory;
+        this.permits = new Semaphore(this.maxSize, true);
+
+        if (this.maxSize == 0) {
+            maintenance = null;
+        } else {
+            // Also runs right away, to open the minSize contexts before the first borrower needs them
+            long intervalNanos = Math.max(idleTimeoutNanos / 2, Duration.ofSeconds(1).toNanos());
+            maintenance = Maintenance.EXECUTOR.scheduleWithFixedDelay(this::maintain, 0, intervalNanos, NANOSECONDS);
+        }
+    }
+
+    /**
+     * Hands out an idle context, or creates a new one using the given factory.
+     *
+     * @param factory creates a new context when no idle one is available
+     * @return a context, or null if the factory returned null
+     * @throws NamingException if creating a new context failed
+     */
+    LdapContext borrow(ContextFactory factory) throws NamingException {
+        if (closed) {
+            throw new IdentityStoreRuntimeException("The LDAP " + name + " pool is closed");
+        }
+
+        if (maxSize == 0) {
+            return factory.create();
+        }
+
+        acquirePermit();
+        try {
+            LdapContext context = pollIdle();
+            if (context == null) {
+                context = factory.create();
+            }
+
+            if (context == null) {
+                permits.release();
+            }
+
+            return context;
+        } catch (NamingException | RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a context that is still usable to the pool.
+     */
+    void release(LdapContext context) {
+        if (context == null) {
+            return;
+        }
+
+        if (maxSize == 0) {
+            close(context);
+            return;
+        }
+
+        long now = System.nanoTime();
+        List<LdapContext> evicted;
+        synchronized (this) {
+            if (closed) {
+                evicted = List.of(context);
+            } else {
+                idleContexts.addFirst(new IdleContext(context, now));
+                evicted = evictIdle(now);
+            }
+        }
+
+        permits.release();
+        evicted.forEach(LdapContextPool::close);
+    }
+
+    /**
+     * Closes a context that is broken or in an unknown state instead of returning it to the pool.
+     */
+    void invalidate(LdapContext context) {
+        if (context == null) {
+            return;
+        }
+
+        close(context);
+
+        if (maxSize != 0) {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes the idle contexts and refuses to hand out contexts from now on. Contexts that are
+     * borrowed at this moment are closed when they're released.
+     */
+    void close() {
+        if (maintenance != null) {
+            maintenance.cancel(false);
+        }
+
+        List<IdleContext> idle;
+        synchronized (this) {
+            closed = true;
+            idle = new ArrayList<>(idleContexts);
+            idleContexts.clear();
+        }
+
+        idle.forEach(idleContext -> close(idleContext.context()));
+    }
+
+    /**
+     * Closes the contexts that have been idle for too long, and opens contexts until
+     * <code>minSize</code> are open. Runs periodically in the background.
+     */
+    void maintain() {
+        List<LdapContext> evicted;
+        synchronized (this) {
+            evicted = closed ? List.of() : evictIdle(System.nanoTime());
+        }
+        evicted.forEach(LdapContextPool::close);
+
+        if (idleContextFactory == null) {
+            return;
+        }
+
+        synchronized (maintenanceLock) {
+            openMinSizeContexts();
+        }
+    }
+
+    private void openMinSizeContexts() {
+        while (!closed && openContexts() < minSize && permits.tryAcquire()) {
+            try {
+                LdapContext context = idleContextFactory.create();
+                if (context == null) {
+                    return;
+                }
+
+                synchronized (this) {
+                    if (closed) {
+                        close(context);
+                    } else {
+                        idleContexts.addLast(new IdleContext(context, System.nanoTime()));
+                    }
+                }
+            } catch (NamingException | RuntimeException e) {
+                LOGGER.log(WARNING, "Could not open an LDAP connection for the " + name + " pool, will try again later", e);
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private synchronized int openContexts() {
+        // Every borrowed context holds a permit
+        return idleContexts.size() + maxSize - permits.availablePermits();
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, NANOSECONDS)) {
+                throw new IdentityStoreRuntimeException(
+                    "Timed out waiting for an LDAP connection from the " + name + " pool (maxSize " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityStoreRuntimeException(e);
+        }
+    }
+
+    private LdapContext pollIdle() {
+        while (true) {
+            IdleContext idleContext;
+            long now = System.nanoTime();
+            synchronized (this) {
+                idleContext = idleContexts.pollFirst();
+            }
+
+            if (idleContext == null) {
+                return null;
+            }
+
+            long idleNanos = now - idleContext.idleSince();
+            if (idleNanos > idleTimeoutNanos) {
+                close(idleContext.context());
+            } else if (idleNanos > validationIntervalNanos && !isHealthy(idleContext.context())) {
+                LOGGER.log(FINE, "Closing stale LDAP connection from the {0} pool", name);
+                close(idleContext.context());
+            } else {
+                return idleContext.context();
+            }
+        }
+    }
+
+    private List<LdapContext> evictIdle(long now) {
+        List<LdapContext> evicted = new ArrayList<>();
+
+        // Least recently used contexts are at the end; keep at least minSize contexts
+        Iterator<IdleContext> iterator = idleContexts.descendingIterator();
+        while (iterator.hasNext() && idleContexts.size() > minSize) {
+            IdleContext idleContext = iterator.next();
+            if (now - idleContext.idleSince() <= idleTimeoutNanos) {
+                break;
+            }
+
+            iterator.remove();
+            evicted.add(idleContext.context());
+        }
+
+        return evicted;
+    }
+
+    private static boolean isHealthy(LdapContext context) {
+        try {
+            context.getAttributes("", NO_ATTRIBUTES);
+            return true;
+        } catch (NamingException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void close(LdapContext context) {
+        try {
+            context.close();
+        } catch (NamingException e) {
+            // Nothing left to do with this connection
+        }
+    }
+
+    private record IdleContext(LdapContext context, long idleSince) {
+    }
+}
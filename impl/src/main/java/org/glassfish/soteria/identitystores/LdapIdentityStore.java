@@ -30,13 +30,18 @@ import javax.naming.directory.SearchResult;
 import javax.naming.ldap.InitialLdapContext;
 import javax.naming.ldap.LdapContext;
 import javax.naming.ldap.LdapName;
+import jakarta.annotation.PreDestroy;
 import jakarta.security.enterprise.credential.Credential;
 import jakarta.security.enterprise.credential.UsernamePasswordCredential;
 import jakarta.security.enterprise.identitystore.CredentialValidationResult;
 import jakarta.security.enterprise.identitystore.IdentityStore;
 import jakarta.security.enterprise.identitystore.LdapIdentityStoreDefinition;
+import java.time.Duration;
 import java.util.*;
 
+import org.glassfish.soteria.utils.ExpiringCache;
+import org.glassfish.soteria.utils.SystemProperties;
+
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
 import static java.util.Collections.*;
@@ -52,19 +57,81 @@ public class LdapIdentityStore implements IdentityStore {
     private static final String DEFAULT_USER_FILTER = "(&(%s=%s)(|(objectclass=user)(objectclass=person)(objectclass=inetOrgPerson)(objectclass=organizationalPerson))(!(objectclass=computer)))";
     private static final String DEFAULT_GROUP_FILTER = "(&(%s=%s)(|(objectclass=group)(objectclass=groupofnames)(objectclass=groupofuniquenames)))";
 
+    private static final int DEFAULT_POOL_MAX_SIZE = 8;
+    private static final Duration DEFAULT_POOL_IDLE_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration DEFAULT_POOL_VALIDATION_INTERVAL = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_POOL_MAX_WAIT = Duration.ofSeconds(10);
+    private static final int DEFAULT_CACHE_MAX_SIZE = 1000;
+
     private final LdapIdentityStoreDefinition ldapIdentityStoreDefinition;
     private final Set<ValidationType> validationTypes;
 
+    // Connections bound as bindDn, used for searching
+    private final LdapContextPool searchContextPool;
+
+    // Connections that are bound again as each caller to check their credentials
+    private final LdapContextPool callerContextPool;
+
+    // Caller name to DN, including callers that were not found
+    private final ExpiringCache<String, CallerDn> callerDnCache;
+
+    // Caller DN to groups
+    private final ExpiringCache<String, Set<String>> callerGroupsCache;
+
+    private final Duration cacheTTL;
+    private final Duration negativeCacheTTL;
+
     // CDI requires a no-arg constructor to be portable
     // It's only used to create the proxy
     protected LdapIdentityStore() {
         this.ldapIdentityStoreDefinition = null;
         this.validationTypes = null;
+        this.searchContextPool = null;
+        this.callerContextPool = null;
+        this.callerDnCache = null;
+        this.callerGroupsCache = null;
+        this.cacheTTL = null;
+        this.negativeCacheTTL = null;
     }
 
     public LdapIdentityStore(LdapIdentityStoreDefinition ldapIdentityStoreDefinition) {
         this.ldapIdentityStoreDefinition = ldapIdentityStoreDefinition;
         validationTypes = unmodifiableSet(new HashSet<>(asList(ldapIdentityStoreDefinition.useFor())));
+        searchContextPool = createPool("search", "ldap.pool.", this::createSearchLdapContext);
+        callerContextPool = createPool("caller bind", "ldap.bindPool.", null);
+
+        // Caching is off unless a TTL is configured, as it delays picking up changes made in the directory
+        int cacheMaxSize = SystemProperties.getInt("ldap.cache.maxSize", DEFAULT_CACHE_MAX_SIZE);
+        callerDnCache = new ExpiringCache<>(cacheMaxSize);
+        callerGroupsCache = new ExpiringCache<>(cacheMaxSize);
+        cacheTTL = SystemProperties.getSeconds("ldap.cache.ttl", Duration.ZERO);
+        negativeCacheTTL = SystemProperties.getSeconds("ldap.cache.negativeTtl", Duration.ZERO);
+    }
+
+    /**
+     * The pools are sized using system properties, as {@link LdapIdentityStoreDefinition} has no
+     * attributes for them, e.g. <code>org.glassfish.soteria.ldap.pool.maxSize</code>. A maxSize of 0
+     * disables pooling. The search pool opens minSize connections in the background; the caller
+     * bind pool only keeps minSize of the connections it opened for callers.
+     */
+    private static LdapContextPool createPool(String name, String prefix, LdapContextPool.ContextFactory idleContextFactory) {
+        return new LdapContextPool(
+            name,
+            SystemProperties.getInt(prefix + "minSize", 0),
+            SystemProperties.getInt(prefix + "maxSize", DEFAULT_POOL_MAX_SIZE),
+            SystemProperties.getSeconds(prefix + "idleTimeout", DEFAULT_POOL_IDLE_TIMEOUT),
+            SystemProperties.getSeconds(prefix + "validationInterval", DEFAULT_POOL_VALIDATION_INTERVAL),
+            SystemProperties.getSeconds(prefix + "maxWait", DEFAULT_POOL_MAX_WAIT),
+            idleContextFactory);
+    }
+
+    /**
+     * Closes the pooled connections.
+     */
+    @PreDestroy
+    public void destroy() {
+        searchContextPool.close();
+        callerContextPool.close();
     }
 
     @Override
@@ -77,42 +144,93 @@ public class LdapIdentityStore implements IdentityStore {
 
     public CredentialValidationResult validate(UsernamePasswordCredential usernamePasswordCredential) {
 
-        LdapContext searchContext = createSearchLdapContext();
+        SearchContext searchContext = new SearchContext();
+        boolean reusable = false;
         try {
             String callerDn = getCallerDn(searchContext, usernamePasswordCredential.getCaller());
-            return validateCallerAndGetGroups(searchContext, callerDn, usernamePasswordCredential);
+            CredentialValidationResult result = validateCallerAndGetGroups(searchContext, callerDn, usernamePasswordCredential);
+            reusable = true;
+            return result;
         }
         finally {
-            closeContext(searchContext);
+            searchContext.release(reusable);
         }
     }
 
-    private String getCallerDn(LdapContext searchContext, String callerName) {
+    /**
+     * Removes the cached DN and groups of the given caller, for instance after the caller was
+     * renamed or the caller's group memberships changed.
+     *
+     * @param callerName the name of the caller
+     */
+    public void invalidateCaller(String callerName) {
+        CallerDn callerDn = callerDnCache.get(callerName);
+        callerDnCache.remove(callerName);
 
-        String callerDn = null;
-        if (!ldapIdentityStoreDefinition.callerBaseDn().isEmpty() &&
-                ldapIdentityStoreDefinition.callerSearchBase().isEmpty()) {
-            callerDn = String.format("%s=%s,%s", ldapIdentityStoreDefinition.callerNameAttribute(),
-                    callerName, ldapIdentityStoreDefinition.callerBaseDn());
+        if (callerDn != null && callerDn.dn() != null) {
+            callerGroupsCache.remove(callerDn.dn());
         }
-        else {
-            callerDn = searchCaller(searchContext, callerName);
+
+        if (isCallerDnDerivedFromBaseDn()) {
+            callerGroupsCache.remove(deriveCallerDn(callerName));
+        }
+    }
+
+    /**
+     * Removes the cached groups of the caller with the given DN, and any caller name that
+     * resolved to this DN.
+     *
+     * @param callerDn the DN of the caller
+     */
+    public void invalidateCallerDn(String callerDn) {
+        callerGroupsCache.remove(callerDn);
+        callerDnCache.removeIf((callerName, cachedDn) -> callerDn.equals(cachedDn.dn()));
+    }
+
+    /**
+     * Removes all cached caller DNs and groups.
+     */
+    public void invalidateAll() {
+        callerDnCache.clear();
+        callerGroupsCache.clear();
+    }
+
+    private String getCallerDn(SearchContext searchContext, String callerName) {
+        if (isCallerDnDerivedFromBaseDn()) {
+            return deriveCallerDn(callerName);
+        }
+
+        CallerDn cachedCallerDn = callerDnCache.get(callerName);
+        if (cachedCallerDn != null) {
+            return cachedCallerDn.dn();
         }
+
+        String callerDn = searchCaller(searchContext.get(), callerName);
+        callerDnCache.put(callerName, new CallerDn(callerDn), callerDn != null ? cacheTTL : negativeCacheTTL);
+
         return callerDn;
     }
 
-    private CredentialValidationResult validateCallerAndGetGroups(LdapContext searchContext,
+    private boolean isCallerDnDerivedFromBaseDn() {
+        return !ldapIdentityStoreDefinition.callerBaseDn().isEmpty() &&
+                ldapIdentityStoreDefinition.callerSearchBase().isEmpty();
+    }
+
+    private String deriveCallerDn(String callerName) {
+        return String.format("%s=%s,%s", ldapIdentityStoreDefinition.callerNameAttribute(),
+                callerName, ldapIdentityStoreDefinition.callerBaseDn());
+    }
+
+    private CredentialValidationResult validateCallerAndGetGroups(SearchContext searchContext,
             String callerDn, UsernamePasswordCredential usernamePasswordCredential) {
 
         if (callerDn == null) {
             return INVALID_RESULT;
         }
 
-        LdapContext callerContext = createCallerLdapContext(callerDn, new String(usernamePasswordCredential.getPassword().getValue()));
-        if (callerContext == null) {
+        if (!bindAsCaller(callerDn, new String(usernamePasswordCredential.getPassword().getValue()))) {
             return INVALID_RESULT;  // either bindDn or bindPassword was invalid
         }
-        closeContext(callerContext);
 
         Set<String> groups = null;
         if (validationTypes().contains(ValidationType.PROVIDE_GROUPS)) {
@@ -129,31 +247,44 @@ public class LdapIdentityStore implements IdentityStore {
 
     @Override
     public Set<String> getCallerGroups(CredentialValidationResult validationResult) {
-        LdapContext searchContext = createSearchLdapContext();
+        SearchContext searchContext = new SearchContext();
+        boolean reusable = false;
         try {
             String callerDn = validationResult.getCallerDn();
             if (callerDn == null || callerDn.isEmpty()) {
                 callerDn = getCallerDn(searchContext, validationResult.getCallerPrincipal().getName());
             }
-            return retrieveGroupsForCallerDn(searchContext, callerDn);
+            Set<String> groups = retrieveGroupsForCallerDn(searchContext, callerDn);
+            reusable = true;
+            return groups;
         }
         finally {
-            closeContext(searchContext);
+            searchContext.release(reusable);
         }
     }
 
-    private Set<String> retrieveGroupsForCallerDn(LdapContext searchContext, String callerDn) {
+    private Set<String> retrieveGroupsForCallerDn(SearchContext searchContext, String callerDn) {
         if (callerDn == null || callerDn.isEmpty()) {
             return emptySet();
         }
 
+        Set<String> groups = callerGroupsCache.get(callerDn);
+        if (groups != null) {
+            return groups;
+        }
+
         if (ldapIdentityStoreDefinition.groupSearchBase().isEmpty() &&
                 !ldapIdentityStoreDefinition.groupMemberOfAttribute().isEmpty()) {
-            return retrieveGroupsFromCallerObject(callerDn, searchContext);
+            groups = retrieveGroupsFromCallerObject(callerDn, searchContext.get());
         }
         else {
-            return retrieveGroupsBySearching(callerDn, searchContext);
+            groups = retrieveGroupsBySearching(callerDn, searchContext.get());
         }
+
+        groups = unmodifiableSet(groups);
+        callerGroupsCache.put(callerDn, groups, cacheTTL);
+
+        return groups;
     }
 
     private Set<String> retrieveGroupsBySearching(String callerDn, LdapContext searchContext) {
@@ -301,6 +432,62 @@ public class LdapIdentityStore implements IdentityStore {
         }
     }
 
+    private LdapContext borrowSearchLdapContext() {
+        try {
+            return searchContextPool.borrow(this::createSearchLdapContext);
+        }
+        catch (NamingException e) {
+            throw new IdentityStoreRuntimeException(e);
+        }
+    }
+
+    private void releaseSearchLdapContext(LdapContext searchContext, boolean reusable) {
+        if (reusable) {
+            searchContextPool.release(searchContext);
+        }
+        else {
+            // The search failed, so the connection may be broken
+            searchContextPool.invalidate(searchContext);
+        }
+    }
+
+    private boolean bindAsCaller(String callerDn, String password) {
+        LdapContext callerContext;
+        try {
+            callerContext = callerContextPool.borrow(() -> createCallerLdapContext(callerDn, password));
+        }
+        catch (NamingException e) {
+            throw new IdentityStoreRuntimeException(e);
+        }
+
+        if (callerContext == null) {
+            return false;
+        }
+
+        try {
+            if (callerContext.getEnvironment().get(SECURITY_CREDENTIALS) == null) {
+                // Pooled connection last bound as another caller; bind again on the same connection
+                callerContext.addToEnvironment(SECURITY_PRINCIPAL, callerDn);
+                callerContext.addToEnvironment(SECURITY_CREDENTIALS, password);
+                callerContext.reconnect(null);
+            }
+
+            // Don't keep the caller's password around in the pool
+            callerContext.removeFromEnvironment(SECURITY_CREDENTIALS);
+        }
+        catch (AuthenticationException e) {
+            callerContextPool.invalidate(callerContext);
+            return false;
+        }
+        catch (NamingException e) {
+            callerContextPool.invalidate(callerContext);
+            throw new IdentityStoreRuntimeException(e);
+        }
+
+        callerContextPool.release(callerContext);
+        return true;
+    }
+
     private LdapContext createSearchLdapContext() {
         try {
             return createLdapContext(
@@ -349,16 +536,6 @@ public class LdapIdentityStore implements IdentityStore {
         }
     }
 
-    private static void closeContext(LdapContext ldapContext) {
-        try {
-            if (ldapContext != null) {
-                ldapContext.close();
-            }
-        } catch (NamingException e) {
-            // We can silently ignore this, no?
-        }
-    }
-
     @Override
     public int priority() {
         return ldapIdentityStoreDefinition.priority();
@@ -369,4 +546,34 @@ public class LdapIdentityStore implements IdentityStore {
         return validationTypes;
     }
 
+    /**
+     * Borrows a search context from the pool only when it's first needed, so that requests
+     * that can be answered from the caches don't take a connection at all.
+     */
+    private final class SearchContext {
+
+        private LdapContext context;
+
+        LdapContext get() {
+            if (context == null) {
+                context = borrowSearchLdapContext();
+            }
+
+            return context;
+        }
+
+        void release(boolean reusable) {
+            if (context != null) {
+                releaseSearchLdapContext(context, reusable);
+                context = null;
+            }
+        }
+    }
+
+    /**
+     * The result of searching a caller; a null dn means the caller was not found.
+     */
+    private record CallerDn(String dn) {
+    }
+
 }
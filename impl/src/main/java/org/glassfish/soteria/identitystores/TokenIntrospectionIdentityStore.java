@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores;
+
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.INVALID_RESULT;
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.NOT_VALIDATED_RESULT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.logging.Level.WARNING;
+import static org.glassfish.soteria.identitystores.jwt.token.JwtTokenParser.JwtType.detectType;
+
+import jakarta.security.enterprise.credential.Credential;
+import jakarta.security.enterprise.identitystore.CredentialValidationResult;
+import jakarta.security.enterprise.identitystore.IdentityStore;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.glassfish.soteria.TokenCredential;
+import org.glassfish.soteria.identitystores.introspection.IntrospectionClient;
+import org.glassfish.soteria.identitystores.introspection.IntrospectionConfiguration;
+import org.glassfish.soteria.identitystores.introspection.IntrospectionResponse;
+import org.glassfish.soteria.identitystores.jwt.token.JwtTokenParser.JwtType;
+import org.glassfish.soteria.utils.ExpiringCache;
+
+/**
+ * Validates opaque access tokens by asking an OAuth 2.0 token introspection endpoint (RFC 7662).
+ *
+ * <p>
+ * Results are remembered under an HMAC of the token, so the tokens themselves are not kept in memory.
+ * Active tokens are remembered until they expire, but at most for the configured maximum TTL, which
+ * bounds the time a revoked token is still accepted. Inactive tokens are remembered for a short
+ * while, so that clients retrying with a bad token don't reach the endpoint each time. Concurrent
+ * requests with the same token share a single call to the endpoint.
+ *
+ * <p>
+ * When the endpoint can't be reached, the token is not validated, and nothing is remembered.
+ */
+public class TokenIntrospectionIdentityStore implements IdentityStore {
+
+    private static final Logger LOGGER = Logger.getLogger(TokenIntrospectionIdentityStore.class.getName());
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final IntrospectionConfiguration configuration;
+    private final IntrospectionClient introspectionClient;
+
+    private final ExpiringCache<ByteBuffer, CredentialValidationResult> results;
+    private final Map<ByteBuffer, CompletableFuture<CredentialValidationResult>> pendingResults = new ConcurrentHashMap<>();
+
+    private final SecretKeySpec tokenKey;
+
+    public TokenIntrospectionIdentityStore(IntrospectionConfiguration configuration) {
+        this(configuration, new IntrospectionClient(configuration));
+    }
+
+    public TokenIntrospectionIdentityStore(IntrospectionConfiguration configuration, IntrospectionClient introspectionClient) {
+        this.configuration = configuration;
+        this.introspectionClient = introspectionClient;
+        this.results = new ExpiringCache<>(configuration.cacheSize());
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.tokenKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public CredentialValidationResult validate(Credential credential) {
+        if (!(credential instanceof TokenCredential tokenCredential)) {
+            return NOT_VALIDATED_RESULT;
+        }
+
+        String token = tokenCredential.getSignedJWT();
+        if (token == null || token.isEmpty()) {
+            return NOT_VALIDATED_RESULT;
+        }
+
+        if (configuration.skipJwt() && detectType(token) != JwtType.INVALID) {
+            // Left to the JWT identity store, which validates it without a round trip
+            return NOT_VALIDATED_RESULT;
+        }
+
+        ByteBuffer key = tokenKey(token);
+
+        CredentialValidationResult result = results.get(key);
+        if (result != null) {
+            return result;
+        }
+
+        try {
+            return introspectOnce(token, key);
+        } catch (IdentityStoreRuntimeException e) {
+            LOGGER.log(WARNING, "Could not introspect token", e);
+            return NOT_VALIDATED_RESULT;
+        }
+    }
+
+    @Override
+    public int priority() {
+        return configuration.priority();
+    }
+
+    /**
+     * Forgets all remembered results, for instance after tokens have been revoked.
+     */
+    public void invalidateAll() {
+        results.clear();
+    }
+
+    private CredentialValidationResult introspectOnce(String token, ByteBuffer key) {
+        CompletableFuture<CredentialValidationResult> pendingResult = new CompletableFuture<>();
+        CompletableFuture<CredentialValidationResult> otherPendingResult = pendingResults.putIfAbsent(key, pendingResult);
+        if (otherPendingResult != null) {
+            return join(otherPendingResult);
+        }
+
+        try {
+            // Another request may have finished introspecting the token in the meantime
+            CredentialValidationResult result = results.get(key);
+            if (result == null) {
+                result = introspect(token, key);
+            }
+
+            pendingResult.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            pendingResult.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingResults.remove(key, pendingResult);
+        }
+    }
+
+    private CredentialValidationResult introspect(String token, ByteBuffer key) {
+        IntrospectionResponse response = introspectionClient.introspect(token);
+        long now = Instant.now().getEpochSecond();
+
+        if (!response.active() || response.callerName() == null ||
+                (response.expirationTime() != null && response.expirationTime() <= now) ||
+                (response.notBefore() != null && response.notBefore() > now)) {
+            results.put(key, INVALID_RESULT, configuration.negativeCacheTTL());
+            return INVALID_RESULT;
+        }
+
+        CredentialValidationResult result = new CredentialValidationResult(response.callerName(), response.groups());
+
+        Duration timeToLive = configuration.maxCacheTTL();
+        if (response.expirationTime() != null) {
+            Duration untilExpiry = Duration.ofSeconds(response.expirationTime() - now);
+            if (untilExpiry.compareTo(timeToLive) < 0) {
+                timeToLive = untilExpiry;
+            }
+        }
+        results.put(key, result, timeToLive);
+
+        return result;
+    }
+
+    private ByteBuffer tokenKey(String token) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(tokenKey);
+
+            return ByteBuffer.wrap(mac.doFinal(token.getBytes(UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static CredentialValidationResult join(CompletableFuture<CredentialValidationResult> pendingResult) {
+        try {
+            return pendingResult.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+
+import jakarta.enterprise.context.Dependent;
+import jakarta.security.enterprise.identitystore.PasswordHash;
+
+/**
+ * A {@link PasswordHash} using bcrypt, producing and accepting hashes in the usual modular crypt format,
+ * e.g. <code>$2b$12$R9h/cIPz0gi.URNNX3kh2OPST9/PgBkqquzi.Ss7KIUgO2t0jWMUW</code>.
+ *
+ * <p>
+ * Hashes with the <code>$2a$</code>, <code>$2b$</code> and <code>$2y$</code> prefixes are verified,
+ * so hashes created by other systems can be imported. New hashes use <code>$2b$</code>.
+ * As with every bcrypt implementation, only the first 72 bytes of the UTF-8 encoded password are used.
+ *
+ * <p>
+ * Supported parameter:
+ * <ul>
+ * <li><code>BCryptPasswordHash.Cost</code> - the base 2 logarithm of the number of rounds, 4 to 31, default 12.
+ * </ul>
+ */
+@Dependent
+public class BCryptPasswordHash implements PasswordHash {
+
+    private static final String BASE64_ALPHABET = "./ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    private static final int DEFAULT_COST = 12;
+    private static final int MIN_COST = 4;
+    private static final int MAX_COST = 31;
+
+    private static final int SALT_SIZE = 16;
+    private static final int HASH_SIZE = 23;
+    private static final int MAX_KEY_SIZE = 72;
+
+    private static final String PROPERTY_COST = "BCryptPasswordHash.Cost";
+
+    private int configuredCost = DEFAULT_COST;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Override
+    public void initialize(Map<String, String> parameters) {
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            if (entry.getKey().equals(PROPERTY_COST)) {
+                try {
+                    configuredCost = Integer.parseInt(entry.getValue());
+                }
+                catch (Exception e) {
+                    throw new IllegalArgumentException("Bad Cost parameter: " + entry.getValue());
+                }
+                if (configuredCost < MIN_COST || configuredCost > MAX_COST) {
+                    throw new IllegalArgumentException("Bad Cost parameter: " + entry.getValue());
+                }
+            }
+            else {
+                throw new IllegalArgumentException("Unrecognized parameter for BCryptPasswordHash");
+            }
+        }
+    }
+
+    @Override
+    public String generate(char[] password) {
+        byte[] salt = getRandomSalt(new byte[SALT_SIZE]);
+        byte[] hash = bcrypt(password, salt, configuredCost);
+
+        return new EncodedPasswordHash("2b", configuredCost, salt, hash).getEncoded();
+    }
+
+    @Override
+    public boolean verify(char[] password, String hashedPassword) {
+        EncodedPasswordHash encodedPasswordHash = new EncodedPasswordHash(hashedPassword);
+
+        VerifiedPasswordCache verifiedPasswords = VerifiedPasswordCache.INSTANCE;
+        ByteBuffer verifiedKey = verifiedPasswords.isEnabled() ? verifiedPasswords.key(password, hashedPassword) : null;
+        if (verifiedKey != null && verifiedPasswords.isVerified(verifiedKey)) {
+            return true;
+        }
+
+        byte[] hashToVerify = bcrypt(password, encodedPasswordHash.getSalt(), encodedPasswordHash.getCost());
+        boolean verified = PasswordHashCompare.compareBytes(hashToVerify, encodedPasswordHash.getHash());
+
+        if (verified && verifiedKey != null) {
+            verifiedPasswords.verified(verifiedKey);
+        }
+
+        return verified;
+    }
+
+    private static byte[] bcrypt(char[] password, byte[] salt, int cost) {
+        // The key is the password including its terminating zero byte, cut off at 72 bytes
+        ByteBuffer encodedPassword = UTF_8.encode(CharBuffer.wrap(password));
+        byte[] key = new byte[Math.min(encodedPassword.remaining() + 1, MAX_KEY_SIZE)];
+        encodedPassword.get(key, 0, Math.min(encodedPassword.remaining(), key.length));
+
+        try {
+            return Arrays.copyOf(EksBlowfish.hash(key, salt, cost), HASH_SIZE);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+            if (encodedPassword.hasArray()) {
+                Arrays.fill(encodedPassword.array(), (byte) 0);
+            }
+        }
+    }
+
+    private synchronized byte[] getRandomSalt(byte[] salt) {
+        random.nextBytes(salt);
+        return salt;
+    }
+
+    private static class EncodedPasswordHash {
+
+        private String version;
+        private int cost;
+        private byte[] salt;
+        private byte[] hash;
+        private String encoded;
+
+        EncodedPasswordHash(String version, int cost, byte[] salt, byte[] hash) {
+            this.version = version;
+            this.cost = cost;
+            this.salt = salt;
+            this.hash = hash;
+            encode();
+        }
+
+        EncodedPasswordHash(String encoded) {
+            this.encoded = encoded;
+            decode();
+        }
+
+        int getCost() { return cost; }
+        byte[] getSalt() { return salt; }
+        byte[] getHash() { return hash; }
+        String getEncoded() { return encoded; }
+
+        private void encode() {
+            encoded = "$" + version + "$" + (cost < 10 ? "0" : "") + cost + "$" +
+                    encodeBase64(salt) + encodeBase64(hash);
+        }
+
+        private void decode() {
+            // $2b$12$ + 22 characters salt + 31 characters hash
+            if (encoded.length() != 60 || encoded.charAt(0) != '$' || encoded.charAt(3) != '$' || encoded.charAt(6) != '$') {
+                throw new IllegalArgumentException("Bad hash encoding");
+            }
+            version = encoded.substring(1, 3);
+            if (!version.equals("2a") && !version.equals("2b") && !version.equals("2y")) {
+                throw new IllegalArgumentException("Bad hash encoding");
+            }
+            try {
+                cost = Integer.parseInt(encoded.substring(4, 6));
+            }
+            catch (Exception e) {
+                throw new IllegalArgumentException("Bad hash encoding", e);
+            }
+            if (cost < MIN_COST || cost > MAX_COST) {
+                throw new IllegalArgumentException("Bad hash encoding");
+            }
+            salt = decodeBase64(encoded.substring(7, 29), SALT_SIZE);
+            hash = decodeBase64(encoded.substring(29), HASH_SIZE);
+        }
+    }
+
+    /**
+     * Encodes using bcrypt's own base 64 variant, which differs from the standard one in its alphabet and
+     * has no padding.
+     */
+    private static String encodeBase64(byte[] bytes) {
+        StringBuilder encoded = new StringBuilder((bytes.length * 4 + 2) / 3);
+        for (int i = 0; i < bytes.length; i += 3) {
+            int chunk = (bytes[i] & 0xff) << 16;
+            if (i + 1 < bytes.length) {
+                chunk |= (bytes[i + 1] & 0xff) << 8;
+            }
+            if (i + 2 < bytes.length) {
+                chunk |= bytes[i + 2] & 0xff;
+            }
+
+            int characters = Math.min(4, (bytes.length - i) * 4 / 3 + 1);
+            for (int j = 0; j < characters; j++) {
+                encoded.append(BASE64_ALPHABET.charAt((chunk >>> (18 - 6 * j)) & 0x3f));
+            }
+        }
+
+        return encoded.toString();
+    }
+
+    private static byte[] decodeBase64(String encoded, int length) {
+        byte[] bytes = new byte[length];
+        int chunk = 0;
+        int bits = 0;
+        int position = 0;
+        for (int i = 0; i < encoded.length() && position < length; i++) {
+            int value = BASE64_ALPHABET.indexOf(encoded.charAt(i));
+            if (value < 0) {
+                throw new IllegalArgumentException("Bad hash encoding");
+            }
+
+            chunk = (chunk << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                bytes[position++] = (byte) (chunk >>> bits);
+            }
+        }
+
+        if (position < length) {
+            throw new IllegalArgumentException("Bad hash encoding");
+        }
+
+        return bytes;
+    }
+
+}
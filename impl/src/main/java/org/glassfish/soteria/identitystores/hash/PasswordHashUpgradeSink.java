@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+/**
+ * Receives a new hash for a password that was verified against a hash with outdated parameters, for
+ * instance fewer iterations than currently configured, so that the stored hash can be replaced.
+ *
+ * <p>
+ * Implementations can be registered as CDI beans, and are called on a background thread after the
+ * caller has already been authenticated. The outdated hash identifies the stored password, as it
+ * contains a random salt.
+ */
+@FunctionalInterface
+public interface PasswordHashUpgradeSink {
+
+    /**
+     * @param outdatedHash the stored hash the password was verified against
+     * @param upgradedHash a hash of the same password using the currently configured parameters
+     */
+    void upgrade(String outdatedHash, String upgradedHash);
+
+    /**
+     * Called on the thread that verified the password, before the upgrade is handed to a background
+     * thread. Sinks that need resources that can only be obtained in the context of the application,
+     * such as a <code>java:comp</code> lookup, can resolve them here.
+     *
+     * @return the sink to call on the background thread
+     */
+    default PasswordHashUpgradeSink prepare() {
+        return this;
+    }
+
+}
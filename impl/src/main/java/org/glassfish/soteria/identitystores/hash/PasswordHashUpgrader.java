@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import static java.util.logging.Level.WARNING;
+import static org.glassfish.soteria.utils.ExecutorServices.newThreadPerTaskExecutor;
+import static org.glassfish.soteria.utils.ExecutorServices.withContextClassLoader;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Re-hashes passwords with outdated hash parameters in the background and hands the result to the
+ * registered {@link PasswordHashUpgradeSink sinks}.
+ */
+final class PasswordHashUpgrader {
+
+    private static final Logger LOGGER = Logger.getLogger(PasswordHashUpgrader.class.getName());
+
+    private static final Executor EXECUTOR = newThreadPerTaskExecutor("soteria-password-hash-upgrade");
+
+    // Hashes for which an upgrade is in progress, so that a burst of logins only re-hashes once
+    private static final Set<String> UPGRADING = ConcurrentHashMap.newKeySet();
+
+    private PasswordHashUpgrader() {}
+
+    /**
+     * Schedules the upgrade of the given hash.
+     *
+     * @param outdatedHash the hash the password was verified against
+     * @param password the verified password; a copy is kept until the new hash has been generated
+     * @param generator generates the new hash
+     * @param sinks the sinks to hand the new hash to, which are prepared on the calling thread
+     */
+    static void upgrade(String outdatedHash, char[] password, Function<char[], String> generator, List<PasswordHashUpgradeSink> sinks) {
+        if (sinks.isEmpty() || !UPGRADING.add(outdatedHash)) {
+            return;
+        }
+
+        List<PasswordHashUpgradeSink> preparedSinks;
+        try {
+            preparedSinks = sinks.stream().map(PasswordHashUpgradeSink::prepare).toList();
+        } catch (RuntimeException e) {
+            UPGRADING.remove(outdatedHash);
+            LOGGER.log(WARNING, "Could not upgrade password hash", e);
+            return;
+        }
+
+        char[] passwordCopy = password.clone();
+        Supplier<Void> upgrade = withContextClassLoader(() -> {
+            try {
+                String upgradedHash = generator.apply(passwordCopy);
+                for (PasswordHashUpgradeSink sink : preparedSinks) {
+                    sink.upgrade(outdatedHash, upgradedHash);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(WARNING, "Could not upgrade password hash", e);
+            } finally {
+                Arrays.fill(passwordCopy, '\0');
+                UPGRADING.remove(outdatedHash);
+            }
+            return null;
+        });
+
+        try {
+            EXECUTOR.execute(upgrade::get);
+        } catch (RejectedExecutionException e) {
+            Arrays.fill(passwordCopy, '\0');
+            UPGRADING.remove(outdatedHash);
+        }
+    }
+
+}
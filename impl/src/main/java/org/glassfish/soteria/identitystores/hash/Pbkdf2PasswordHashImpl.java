@@ -16,19 +16,25 @@
 
 package org.glassfish.soteria.identitystores.hash;
 
+import java.nio.ByteBuffer;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
 import static java.util.Arrays.asList;
+import java.util.ArrayList;
 import java.util.Base64;
 import static java.util.Collections.unmodifiableSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import jakarta.enterprise.context.Dependent;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
 import jakarta.security.enterprise.identitystore.Pbkdf2PasswordHash;
 
 @Dependent
@@ -56,6 +62,9 @@ public class Pbkdf2PasswordHashImpl implements Pbkdf2PasswordHash {
     private static final String PROPERTY_SALTSIZE   = "Pbkdf2PasswordHash.SaltSizeBytes";
     private static final String PROPERTY_KEYSIZE    = "Pbkdf2PasswordHash.KeySizeBytes";
 
+    // SecretKeyFactory instances aren't thread-safe, but are costly enough to look up to keep one per thread
+    private static final ThreadLocal<Map<String, SecretKeyFactory>> SECRET_KEY_FACTORIES = ThreadLocal.withInitial(HashMap::new);
+
     private String configuredAlgorithm  = DEFAULT_ALGORITHM;   // PBKDF2 algorithm to use
     private int configuredIterations    = DEFAULT_ITERATIONS;  // number of iterations
     private int configuredSaltSizeBytes = DEFAULT_SALT_SIZE;   // salt size in bytes
@@ -63,6 +72,14 @@ public class Pbkdf2PasswordHashImpl implements Pbkdf2PasswordHash {
     
     private final SecureRandom random = new SecureRandom();
 
+    @Inject
+    private Instance<PasswordHashUpgradeSink> upgradeSinkBeans;
+
+    private PasswordHashUpgradeSink upgradeSink;
+
+    // The sink beans, resolved once as @Dependent instances live as long as this hash
+    private volatile List<PasswordHashUpgradeSink> resolvedUpgradeSinkBeans;
+
     @Override
     public void initialize(Map<String, String> parameters) {
         for (Map.Entry<String, String> entry : parameters.entrySet()) {
@@ -121,24 +138,103 @@ public class Pbkdf2PasswordHashImpl implements Pbkdf2PasswordHash {
     @Override
     public boolean verify(char[] password, String hashedPassword) {
         EncodedPasswordHash encodedPasswordHash = new EncodedPasswordHash(hashedPassword);
+
+        VerifiedPasswordCache verifiedPasswords = VerifiedPasswordCache.INSTANCE;
+        ByteBuffer verifiedKey = verifiedPasswords.isEnabled() ? verifiedPasswords.key(password, hashedPassword) : null;
+        if (verifiedKey != null && verifiedPasswords.isVerified(verifiedKey)) {
+            return true;
+        }
+
         byte[] hashToVerify = pbkdf2(
                 password,
                 encodedPasswordHash.getSalt(),
                 encodedPasswordHash.getAlgorithm(),
                 encodedPasswordHash.getIterations(),
                 encodedPasswordHash.getHash().length);
-        return PasswordHashCompare.compareBytes(hashToVerify, encodedPasswordHash.getHash());
+        boolean verified = PasswordHashCompare.compareBytes(hashToVerify, encodedPasswordHash.getHash());
+
+        if (verified && verifiedKey != null) {
+            verifiedPasswords.verified(verifiedKey);
+        }
+
+        if (verified && isOutdated(encodedPasswordHash)) {
+            PasswordHashUpgrader.upgrade(hashedPassword, password, this::generate, getUpgradeSinks());
+        }
+
+        return verified;
+    }
+
+    /**
+     * Sets a sink that receives a new hash whenever a password is verified against a hash with outdated
+     * parameters, in addition to the sinks that are registered as CDI beans.
+     *
+     * @param upgradeSink the sink, or null to remove it
+     */
+    public void setUpgradeSink(PasswordHashUpgradeSink upgradeSink) {
+        this.upgradeSink = upgradeSink;
+    }
+
+    private boolean isOutdated(EncodedPasswordHash encodedPasswordHash) {
+        return
+            !encodedPasswordHash.getAlgorithm().equals(configuredAlgorithm) ||
+            encodedPasswordHash.getIterations() < configuredIterations ||
+            encodedPasswordHash.getSalt().length < configuredSaltSizeBytes ||
+            encodedPasswordHash.getHash().length < configuredKeySizeBytes;
+    }
+
+    private List<PasswordHashUpgradeSink> getUpgradeSinks() {
+        List<PasswordHashUpgradeSink> sinkBeans = getUpgradeSinkBeans();
+        if (upgradeSink == null) {
+            return sinkBeans;
+        }
+
+        List<PasswordHashUpgradeSink> upgradeSinks = new ArrayList<>(sinkBeans.size() + 1);
+        upgradeSinks.add(upgradeSink);
+        upgradeSinks.addAll(sinkBeans);
+
+        return upgradeSinks;
+    }
+
+    private List<PasswordHashUpgradeSink> getUpgradeSinkBeans() {
+        List<PasswordHashUpgradeSink> sinkBeans = resolvedUpgradeSinkBeans;
+        if (sinkBeans != null) {
+            return sinkBeans;
+        }
+
+        synchronized (this) {
+            if (resolvedUpgradeSinkBeans == null) {
+                List<PasswordHashUpgradeSink> beans = new ArrayList<>();
+                if (upgradeSinkBeans != null && !upgradeSinkBeans.isUnsatisfied()) {
+                    upgradeSinkBeans.forEach(beans::add);
+                }
+                resolvedUpgradeSinkBeans = List.copyOf(beans);
+            }
+
+            return resolvedUpgradeSinkBeans;
+        }
     }
 
     private byte[] pbkdf2(char[] password, byte[] salt, String algorithm, int iterations, int keySizeBytes) {
         try {
-            return SecretKeyFactory.getInstance(algorithm).generateSecret(
+            return getSecretKeyFactory(algorithm).generateSecret(
                     new PBEKeySpec(password, salt, iterations, keySizeBytes * 8)).getEncoded();
         } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
             throw new IllegalStateException(e);
         }
     }
 
+    private static SecretKeyFactory getSecretKeyFactory(String algorithm) throws NoSuchAlgorithmException {
+        Map<String, SecretKeyFactory> secretKeyFactories = SECRET_KEY_FACTORIES.get();
+
+        SecretKeyFactory secretKeyFactory = secretKeyFactories.get(algorithm);
+        if (secretKeyFactory == null) {
+            secretKeyFactory = SecretKeyFactory.getInstance(algorithm);
+            secretKeyFactories.put(algorithm, secretKeyFactory);
+        }
+
+        return secretKeyFactory;
+    }
+
     private synchronized byte[] getRandomSalt(byte[] salt) {
         random.nextBytes(salt);
         return salt;
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The scrypt key derivation function as specified by RFC 7914.
+ */
+final class Scrypt {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private Scrypt() {}
+
+    /**
+     * @param password the password
+     * @param salt the salt
+     * @param n the CPU/memory cost parameter, a power of 2
+     * @param r the block size parameter
+     * @param p the parallelization parameter
+     * @param keyLength the length of the derived key in bytes
+     * @return the derived key
+     */
+    static byte[] scrypt(byte[] password, byte[] salt, int n, int r, int p, int keyLength) {
+        Mac mac = createMac(password);
+
+        int blockSize = 128 * r;
+        int blockInts = 32 * r;
+
+        byte[] b = pbkdf2(mac, salt, p * blockSize);
+
+        int[] x = new int[blockInts];
+        int[] y = new int[blockInts];
+        int[] v = new int[blockInts * n];
+        int[] scratch = new int[16];
+        try {
+            for (int i = 0; i < p; i++) {
+                readInts(b, i * blockSize, x);
+                roMix(x, y, v, scratch, n, r);
+                writeInts(x, b, i * blockSize);
+            }
+
+            return pbkdf2(mac, b, keyLength);
+        } finally {
+            Arrays.fill(b, (byte) 0);
+            Arrays.fill(x, 0);
+            Arrays.fill(y, 0);
+            Arrays.fill(v, 0);
+        }
+    }
+
+    private static Mac createMac(byte[] password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+
+            // HMAC pads the key with zero bytes, so a single zero byte is equivalent to an empty key,
+            // which SecretKeySpec doesn't allow
+            mac.init(new SecretKeySpec(password.length == 0 ? new byte[1] : password, HMAC_ALGORITHM));
+
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * PBKDF2-HMAC-SHA256 with a single iteration, as used by scrypt.
+     */
+    private static byte[] pbkdf2(Mac mac, byte[] salt, int length) {
+        byte[] derived = new byte[length];
+        byte[] blockIndex = new byte[4];
+
+        for (int block = 1, offset = 0; offset < length; block++, offset += 32) {
+            blockIndex[0] = (byte) (block >>> 24);
+            blockIndex[1] = (byte) (block >>> 16);
+            blockIndex[2] = (byte) (block >>> 8);
+            blockIndex[3] = (byte) block;
+
+            mac.update(salt);
+            byte[] u = mac.doFinal(blockIndex);
+            System.arraycopy(u, 0, derived, offset, Math.min(u.length, length - offset));
+        }
+
+        return derived;
+    }
+
+    private static void roMix(int[] x, int[] y, int[] v, int[] scratch, int n, int r) {
+        int blockInts = x.length;
+
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(x, 0, v, i * blockInts, blockInts);
+            blockMix(x, y, scratch, r);
+        }
+
+        for (int i = 0; i < n; i++) {
+            int j = x[(2 * r - 1) * 16] & (n - 1);
+            for (int k = 0; k < blockInts; k++) {
+                x[k] ^= v[j * blockInts + k];
+            }
+            blockMix(x, y, scratch, r);
+        }
+    }
+
+    /**
+     * Mixes the 2 * r 64 byte blocks of b in place, using y and x as scratch space.
+     */
+    private static void blockMix(int[] b, int[] y, int[] x, int r) {
+        System.arraycopy(b, (2 * r - 1) * 16, x, 0, 16);
+
+        for (int i = 0; i < 2 * r; i++) {
+            for (int k = 0; k < 16; k++) {
+                x[k] ^= b[i * 16 + k];
+            }
+            salsa208(x);
+
+            // Even blocks go to the first half, odd blocks to the second half
+            System.arraycopy(x, 0, y, ((i & 1) * r + (i >> 1)) * 16, 16);
+        }
+
+        System.arraycopy(y, 0, b, 0, b.length);
+    }
+
+    private static void salsa208(int[] b) {
+        int x0 = b[0], x1 = b[1], x2 = b[2], x3 = b[3], x4 = b[4], x5 = b[5], x6 = b[6], x7 = b[7];
+        int x8 = b[8], x9 = b[9], x10 = b[10], x11 = b[11], x12 = b[12], x13 = b[13], x14 = b[14], x15 = b[15];
+
+        for (int i = 0; i < 8; i += 2) {
+            // Columns
+            x4 ^= Integer.rotateLeft(x0 + x12, 7);   x8 ^= Integer.rotateLeft(x4 + x0, 9);
+            x12 ^= Integer.rotateLeft(x8 + x4, 13);  x0 ^= Integer.rotateLeft(x12 + x8, 18);
+            x9 ^= Integer.rotateLeft(x5 + x1, 7);    x13 ^= Integer.rotateLeft(x9 + x5, 9);
+            x1 ^= Integer.rotateLeft(x13 + x9, 13);  x5 ^= Integer.rotateLeft(x1 + x13, 18);
+            x14 ^= Integer.rotateLeft(x10 + x6, 7);  x2 ^= Integer.rotateLeft(x14 + x10, 9);
+            x6 ^= Integer.rotateLeft(x2 + x14, 13);  x10 ^= Integer.rotateLeft(x6 + x2, 18);
+            x3 ^= Integer.rotateLeft(x15 + x11, 7);  x7 ^= Integer.rotateLeft(x3 + x15, 9);
+            x11 ^= Integer.rotateLeft(x7 + x3, 13);  x15 ^= Integer.rotateLeft(x11 + x7, 18);
+
+            // Rows
+            x1 ^= Integer.rotateLeft(x0 + x3, 7);    x2 ^= Integer.rotateLeft(x1 + x0, 9);
+            x3 ^= Integer.rotateLeft(x2 + x1, 13);   x0 ^= Integer.rotateLeft(x3 + x2, 18);
+            x6 ^= Integer.rotateLeft(x5 + x4, 7);    x7 ^= Integer.rotateLeft(x6 + x5, 9);
+            x4 ^= Integer.rotateLeft(x7 + x6, 13);   x5 ^= Integer.rotateLeft(x4 + x7, 18);
+            x11 ^= Integer.rotateLeft(x10 + x9, 7);  x8 ^= Integer.rotateLeft(x11 + x10, 9);
+            x9 ^= Integer.rotateLeft(x8 + x11, 13);  x10 ^= Integer.rotateLeft(x9 + x8, 18);
+            x12 ^= Integer.rotateLeft(x15 + x14, 7); x13 ^= Integer.rotateLeft(x12 + x15, 9);
+            x14 ^= Integer.rotateLeft(x13 + x12, 13); x15 ^= Integer.rotateLeft(x14 + x13, 18);
+        }
+
+        b[0] += x0; b[1] += x1; b[2] += x2; b[3] += x3; b[4] += x4; b[5] += x5; b[6] += x6; b[7] += x7;
+        b[8] += x8; b[9] += x9; b[10] += x10; b[11] += x11; b[12] += x12; b[13] += x13; b[14] += x14; b[15] += x15;
+    }
+
+    private static void readInts(byte[] bytes, int offset, int[] ints) {
+        for (int i = 0; i < ints.length; i++) {
+            int position = offset + i * 4;
+            ints[i] = (bytes[position] & 0xff) |
+                      (bytes[position + 1] & 0xff) << 8 |
+                      (bytes[position + 2] & 0xff) << 16 |
+                      (bytes[position + 3] & 0xff) << 24;
+        }
+    }
+
+    private static void writeInts(int[] ints, byte[] bytes, int offset) {
+        for (int i = 0; i < ints.length; i++) {
+            int position = offset + i * 4;
+            bytes[position] = (byte) ints[i];
+            bytes[position + 1] = (byte) (ints[i] >>> 8);
+            bytes[position + 2] = (byte) (ints[i] >>> 16);
+            bytes[position + 3] = (byte) (ints[i] >>> 24);
+        }
+    }
+}
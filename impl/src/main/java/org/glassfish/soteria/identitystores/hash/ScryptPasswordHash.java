@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+import jakarta.enterprise.context.Dependent;
+import jakarta.security.enterprise.identitystore.PasswordHash;
+
+/**
+ * A {@link PasswordHash} using the memory-hard scrypt function (RFC 7914).
+ *
+ * <p>
+ * Hashes are encoded as <code>scrypt:N:r:p:salt:hash</code>, with salt and hash in Base64, so that
+ * hashes created with other parameters can still be verified.
+ *
+ * <p>
+ * Supported parameters:
+ * <ul>
+ * <li><code>ScryptPasswordHash.CostParameter</code> - N, a power of 2, default 16384.
+ * <li><code>ScryptPasswordHash.BlockSize</code> - r, default 8. Every verification uses 128 * r * N bytes
+ * of memory, 16 MiB with the defaults.
+ * <li><code>ScryptPasswordHash.Parallelization</code> - p, default 1.
+ * <li><code>ScryptPasswordHash.SaltSizeBytes</code> - default 32, minimum 16.
+ * <li><code>ScryptPasswordHash.KeySizeBytes</code> - default 32, minimum 16.
+ * </ul>
+ */
+@Dependent
+public class ScryptPasswordHash implements PasswordHash {
+
+    private static final String ALGORITHM = "scrypt";
+
+    private static final int DEFAULT_COST = 16384;
+    private static final int DEFAULT_BLOCK_SIZE = 8;
+    private static final int DEFAULT_PARALLELIZATION = 1;
+    private static final int DEFAULT_SALT_SIZE = 32;          // 32-byte/256-bit salt
+    private static final int DEFAULT_KEY_SIZE = 32;           // 32-byte/256-bit key/hash
+
+    private static final int MIN_SALT_SIZE = 16;              // 16-byte/128-bit minimum salt
+    private static final int MIN_KEY_SIZE = 16;               // 16-byte/128-bit minimum key/hash
+
+    private static final String PROPERTY_COST = "ScryptPasswordHash.CostParameter";
+    private static final String PROPERTY_BLOCKSIZE = "ScryptPasswordHash.BlockSize";
+    private static final String PROPERTY_PARALLELIZATION = "ScryptPasswordHash.Parallelization";
+    private static final String PROPERTY_SALTSIZE = "ScryptPasswordHash.SaltSizeBytes";
+    private static final String PROPERTY_KEYSIZE = "ScryptPasswordHash.KeySizeBytes";
+
+    private int configuredCost = DEFAULT_COST;
+    private int configuredBlockSize = DEFAULT_BLOCK_SIZE;
+    private int configuredParallelization = DEFAULT_PARALLELIZATION;
+    private int configuredSaltSizeBytes = DEFAULT_SALT_SIZE;
+    private int configuredKeySizeBytes = DEFAULT_KEY_SIZE;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Override
+    public void initialize(Map<String, String> parameters) {
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            if (entry.getKey().equals(PROPERTY_COST)) {
+                configuredCost = parseParameter("CostParameter", entry.getValue(), 2);
+            }
+            else if (entry.getKey().equals(PROPERTY_BLOCKSIZE)) {
+                configuredBlockSize = parseParameter("BlockSize", entry.getValue(), 1);
+            }
+            else if (entry.getKey().equals(PROPERTY_PARALLELIZATION)) {
+                configuredParallelization = parseParameter("Parallelization", entry.getValue(), 1);
+            }
+            else if (entry.getKey().equals(PROPERTY_SALTSIZE)) {
+                configuredSaltSizeBytes = parseParameter("SaltSizeBytes", entry.getValue(), MIN_SALT_SIZE);
+            }
+            else if (entry.getKey().equals(PROPERTY_KEYSIZE)) {
+                configuredKeySizeBytes = parseParameter("KeySizeBytes", entry.getValue(), MIN_KEY_SIZE);
+            }
+            else {
+                throw new IllegalArgumentException("Unrecognized parameter for ScryptPasswordHash");
+            }
+        }
+
+        if (!isValid(configuredCost, configuredBlockSize, configuredParallelization)) {
+            throw new IllegalArgumentException("Bad combination of CostParameter, BlockSize and Parallelization parameters");
+        }
+    }
+
+    @Override
+    public String generate(char[] password) {
+        byte[] salt = getRandomSalt(new byte[configuredSaltSizeBytes]);
+        byte[] hash = scrypt(password, salt, configuredCost, configuredBlockSize, configuredParallelization, configuredKeySizeBytes);
+
+        return new EncodedPasswordHash(hash, salt, configuredCost, configuredBlockSize, configuredParallelization).getEncoded();
+    }
+
+    @Override
+    public boolean verify(char[] password, String hashedPassword) {
+        EncodedPasswordHash encodedPasswordHash = new EncodedPasswordHash(hashedPassword);
+
+        VerifiedPasswordCache verifiedPasswords = VerifiedPasswordCache.INSTANCE;
+        ByteBuffer verifiedKey = verifiedPasswords.isEnabled() ? verifiedPasswords.key(password, hashedPassword) : null;
+        if (verifiedKey != null && verifiedPasswords.isVerified(verifiedKey)) {
+            return true;
+        }
+
+        byte[] hashToVerify = scrypt(
+                password,
+                encodedPasswordHash.getSalt(),
+                encodedPasswordHash.getCost(),
+                encodedPasswordHash.getBlockSize(),
+                encodedPasswordHash.getParallelization(),
+                encodedPasswordHash.getHash().length);
+        boolean verified = PasswordHashCompare.compareBytes(hashToVerify, encodedPasswordHash.getHash());
+
+        if (verified && verifiedKey != null) {
+            verifiedPasswords.verified(verifiedKey);
+        }
+
+        return verified;
+    }
+
+    private static byte[] scrypt(char[] password, byte[] salt, int cost, int blockSize, int parallelization, int keySizeBytes) {
+        ByteBuffer encodedPassword = UTF_8.encode(CharBuffer.wrap(password));
+        byte[] passwordBytes = new byte[encodedPassword.remaining()];
+        encodedPassword.get(passwordBytes);
+
+        try {
+            return Scrypt.scrypt(passwordBytes, salt, cost, blockSize, parallelization, keySizeBytes);
+        } finally {
+            Arrays.fill(passwordBytes, (byte) 0);
+            if (encodedPassword.hasArray()) {
+                Arrays.fill(encodedPassword.array(), (byte) 0);
+            }
+        }
+    }
+
+    private static int parseParameter(String name, String value, int minimum) {
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        }
+        catch (Exception e) {
+            throw new IllegalArgumentException("Bad " + name + " parameter: " + value);
+        }
+        if (parsed < minimum) {
+            throw new IllegalArgumentException("Bad " + name + " parameter: " + value);
+        }
+
+        return parsed;
+    }
+
+    /**
+     * Checks the constraints of RFC 7914, and that the working memory can be addressed by a Java array.
+     */
+    private static boolean isValid(int cost, int blockSize, int parallelization) {
+        return
+            cost > 1 && (cost & (cost - 1)) == 0 &&
+            blockSize > 0 && parallelization > 0 &&
+            (long) blockSize * parallelization < (1 << 30) &&
+            32L * blockSize * cost <= Integer.MAX_VALUE - 8 &&
+            128L * blockSize * parallelization <= Integer.MAX_VALUE;
+    }
+
+    private synchronized byte[] getRandomSalt(byte[] salt) {
+        random.nextBytes(salt);
+        return salt;
+    }
+
+    private static class EncodedPasswordHash {
+
+        private int cost;
+        private int blockSize;
+        private int parallelization;
+        private byte[] salt;
+        private byte[] hash;
+        private String encoded;
+
+        EncodedPasswordHash(byte[] hash, byte[] salt, int cost, int blockSize, int parallelization) {
+            this.cost = cost;
+            this.blockSize = blockSize;
+            this.parallelization = parallelization;
+            this.salt = salt;
+            this.hash = hash;
+            encode();
+        }
+
+        EncodedPasswordHash(String encoded) {
+            this.encoded = encoded;
+            decode();
+        }
+
+        int getCost() { return cost; }
+        int getBlockSize() { return blockSize; }
+        int getParallelization() { return parallelization; }
+        byte[] getSalt() { return salt; }
+        byte[] getHash() { return hash; }
+        String getEncoded() { return encoded; }
+
+        private void encode() {
+            encoded = ALGORITHM + ":" + cost + ":" + blockSize + ":" + parallelization + ":" +
+                    Base64.getEncoder().encodeToString(salt) + ":" +
+                    Base64.getEncoder().encodeToString(hash);
+        }
+
+        private void decode() {
+            String[] tokens = encoded.split(":");
+            if (tokens.length != 6) {
+                throw new IllegalArgumentException("Bad hash encoding");
+            }
+            if (!ALGORITHM.equals(tokens[0])) {
+                throw new IllegalArgumentException("Bad hash encoding");
+            }
+            try {
+                cost = Integer.parseInt(tokens[1]);
+                blockSize = Integer.parseInt(tokens[2]);
+                parallelization = Integer.parseInt(tokens[3]);
+                salt = Base64.getDecoder().decode(tokens[4]);
+                hash = Base64.getDecoder().decode(tokens[5]);
+            }
+            catch (Exception e) {
+                throw new IllegalArgumentException("Bad hash encoding", e);
+            }
+            if (!isValid(cost, blockSize, parallelization) || hash.length == 0) {
+                throw new IllegalArgumentException("Bad hash encoding");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.glassfish.soteria.utils.ExpiringCache;
+import org.glassfish.soteria.utils.SystemProperties;
+
+/**
+ * Remembers for a short while which password matched which stored hash, so that clients that send
+ * the same password with every request don't pay for the (deliberately slow) hash function each time.
+ *
+ * <p>
+ * Entries are keyed by an HMAC of the stored hash and the password under a secret that is generated
+ * at startup and never leaves the process; neither the password nor anything that can be checked
+ * against it offline is kept. Since the stored hash is part of the key, a changed password never
+ * matches a remembered entry. Only successful verifications are remembered.
+ *
+ * <p>
+ * Disabled by default; enabled by setting
+ * <code>org.glassfish.soteria.passwordHash.verifiedCache.ttl</code> to a number of seconds. The
+ * number of entries is bounded by <code>org.glassfish.soteria.passwordHash.verifiedCache.maxSize</code>
+ * (default 1000).
+ */
+final class VerifiedPasswordCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    static final VerifiedPasswordCache INSTANCE = new VerifiedPasswordCache(
+        SystemProperties.getSeconds("passwordHash.verifiedCache.ttl", Duration.ZERO),
+        SystemProperties.getInt("passwordHash.verifiedCache.maxSize", 1000));
+
+    private final Duration timeToLive;
+    private final ExpiringCache<ByteBuffer, Boolean> verified;
+    private final SecretKeySpec secret;
+
+    VerifiedPasswordCache(Duration timeToLive, int maxSize) {
+        this.timeToLive = timeToLive;
+        this.verified = new ExpiringCache<>(maxSize);
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.secret = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    boolean isEnabled() {
+        return !timeToLive.isZero() && !timeToLive.isNegative();
+    }
+
+    /**
+     * @return a key for the combination of password and stored hash, to be passed to the other methods
+     */
+    ByteBuffer key(char[] password, String hashedPassword) {
+        Mac mac;
+        try {
+            mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secret);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] hash = hashedPassword.getBytes(UTF_8);
+        mac.update(ByteBuffer.allocate(4).putInt(hash.length).array());
+        mac.update(hash);
+
+        ByteBuffer passwordBytes = UTF_8.encode(CharBuffer.wrap(password));
+        mac.update(passwordBytes);
+        if (passwordBytes.hasArray()) {
+            Arrays.fill(passwordBytes.array(), (byte) 0);
+        }
+
+        return ByteBuffer.wrap(mac.doFinal());
+    }
+
+    boolean isVerified(ByteBuffer key) {
+        return verified.get(key) != null;
+    }
+
+    void verified(ByteBuffer key) {
+        verified.put(key, Boolean.TRUE, timeToLive);
+    }
+
+}
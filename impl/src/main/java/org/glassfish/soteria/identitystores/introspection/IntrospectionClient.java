@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.introspection;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParser.Event;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.glassfish.soteria.identitystores.IdentityStoreRuntimeException;
+
+/**
+ * Asks an OAuth 2.0 token introspection endpoint (RFC 7662) about tokens.
+ *
+ * <p>
+ * All requests go through a single HTTP client, which keeps connections to the endpoint open
+ * between requests. The client authenticates with HTTP Basic authentication when a client ID
+ * has been configured.
+ */
+public class IntrospectionClient {
+
+    private static final String ACTIVE = "active";
+    private static final String EXP = "exp";
+    private static final String NBF = "nbf";
+    private static final String SUB = "sub";
+
+    private final IntrospectionConfiguration configuration;
+    private final HttpClient httpClient;
+    private final String authorization;
+
+    public IntrospectionClient(IntrospectionConfiguration configuration) {
+        this.configuration = configuration;
+        this.httpClient = HttpClient.newBuilder()
+                                    .connectTimeout(configuration.connectTimeout())
+                                    .build();
+
+        // RFC 6749, section 2.3.1: the client ID and secret are form-encoded before being combined
+        String clientId = configuration.clientId();
+        this.authorization = clientId == null || clientId.isEmpty() ? null :
+            "Basic " + Base64.getEncoder().encodeToString(
+                (encode(clientId) + ":" + encode(configuration.clientSecret() != null ? configuration.clientSecret() : "")).getBytes(UTF_8));
+    }
+
+    /**
+     * @param token the token to ask about
+     * @return the response of the endpoint
+     * @throws IdentityStoreRuntimeException if the endpoint could not be reached or didn't respond as expected
+     */
+    public IntrospectionResponse introspect(String token) {
+        HttpRequest.Builder request =
+            HttpRequest.newBuilder(configuration.endpoint())
+                       .timeout(configuration.readTimeout())
+                       .header("Content-Type", "application/x-www-form-urlencoded")
+                       .header("Accept", "application/json")
+                       .POST(BodyPublishers.ofString("token=" + encode(token) + "&token_type_hint=access_token"));
+
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request.build(), BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new IdentityStoreRuntimeException("Could not reach introspection endpoint " + configuration.endpoint(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityStoreRuntimeException("Interrupted while waiting for introspection endpoint " + configuration.endpoint(), e);
+        }
+
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IdentityStoreRuntimeException(
+                    "Introspection endpoint " + configuration.endpoint() + " responded with status " + response.statusCode());
+            }
+
+            return parse(body);
+        } catch (IOException e) {
+            throw new IdentityStoreRuntimeException("Could not read response of introspection endpoint " + configuration.endpoint(), e);
+        }
+    }
+
+    /**
+     * Reads the members of the response that are needed in a single pass, skipping all others.
+     */
+    IntrospectionResponse parse(InputStream body) {
+        boolean active = false;
+        String callerName = null;
+        String subject = null;
+        Set<String> groups = Set.of();
+        Long expirationTime = null;
+        Long notBefore = null;
+
+        try (JsonParser parser = Json.createParser(body)) {
+            if (!parser.hasNext() || parser.next() != Event.START_OBJECT) {
+                throw new IdentityStoreRuntimeException("Introspection response is not a JSON object");
+            }
+
+            Event event;
+            while ((event = parser.next()) == Event.KEY_NAME) {
+                String name = parser.getString();
+                event = parser.next();
+
+                if (name.equals(configuration.callerNameClaim()) && event == Event.VALUE_STRING) {
+                    callerName = parser.getString();
+                } else if (name.equals(configuration.groupsClaim())) {
+                    groups = readGroups(parser, event);
+                } else if (name.equals(ACTIVE)) {
+                    active = event == Event.VALUE_TRUE;
+                } else if (name.equals(EXP) && event == Event.VALUE_NUMBER) {
+                    expirationTime = parser.getLong();
+                } else if (name.equals(NBF) && event == Event.VALUE_NUMBER) {
+                    notBefore = parser.getLong();
+                } else if (name.equals(SUB) && event == Event.VALUE_STRING) {
+                    subject = parser.getString();
+                } else {
+                    skip(parser, event);
+                }
+            }
+
+            if (event != Event.END_OBJECT) {
+                throw new IdentityStoreRuntimeException("Introspection response is not a JSON object");
+            }
+        } catch (JsonException | NoSuchElementException e) {
+            throw new IdentityStoreRuntimeException("Introspection response is not valid JSON", e);
+        }
+
+        if (!active) {
+            return IntrospectionResponse.INACTIVE;
+        }
+
+        return new IntrospectionResponse(true, callerName != null ? callerName : subject, groups, expirationTime, notBefore);
+    }
+
+    /**
+     * Reads an array of group names, or a single string with space separated names, as used by
+     * the <code>scope</code> member.
+     */
+    private static Set<String> readGroups(JsonParser parser, Event event) {
+        Set<String> groups = new HashSet<>();
+
+        if (event == Event.VALUE_STRING) {
+            for (String group : parser.getString().split(" ")) {
+                if (!group.isEmpty()) {
+                    groups.add(group);
+                }
+            }
+        } else if (event == Event.START_ARRAY) {
+            while ((event = parser.next()) != Event.END_ARRAY) {
+                if (event == Event.VALUE_STRING) {
+                    groups.add(parser.getString());
+                } else {
+                    skip(parser, event);
+                }
+            }
+        } else {
+            skip(parser, event);
+        }
+
+        return groups;
+    }
+
+    private static void skip(JsonParser parser, Event event) {
+        if (event == Event.START_OBJECT) {
+            parser.skipObject();
+        } else if (event == Event.START_ARRAY) {
+            parser.skipArray();
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, UTF_8);
+    }
+}
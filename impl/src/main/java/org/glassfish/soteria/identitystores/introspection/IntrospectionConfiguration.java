@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.introspection;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * The settings of a token introspection identity store.
+ *
+ * <p>
+ * Active tokens are remembered until they expire, but no longer than <code>maxCacheTTL</code>;
+ * inactive tokens are remembered for <code>negativeCacheTTL</code>. A TTL of 0 disables the respective
+ * cache.
+ *
+ * <p>
+ * For a JWT authentication mechanism, the store is added when the
+ * <code>org.glassfish.soteria.introspection.endpoint</code> system property is set. The other settings are
+ * read from system properties with the same prefix and the name of the component, e.g.
+ * <code>org.glassfish.soteria.introspection.clientId</code>; TTLs and timeouts are given in seconds,
+ * with <code>maxCacheTtl</code> and <code>negativeCacheTtl</code> as the names of the TTLs.
+ * <code>callerNameClaim</code> falls back to <code>sub</code> when a response doesn't have it, and
+ * <code>skipJwt</code> leaves tokens that look like a JWT to the JWT identity store.
+ */
+public record IntrospectionConfiguration(
+
+    URI endpoint,
+    String clientId,
+    String clientSecret,
+
+    Duration connectTimeout,
+    Duration readTimeout,
+
+    Duration maxCacheTTL,
+    Duration negativeCacheTTL,
+    int cacheSize,
+
+    String callerNameClaim,
+    String groupsClaim,
+    boolean skipJwt,
+    int priority) {
+
+}
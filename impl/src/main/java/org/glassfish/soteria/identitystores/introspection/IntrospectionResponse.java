@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.introspection;
+
+import java.util.Set;
+
+/**
+ * The parts of a token introspection response (RFC 7662, section 2.2) that are needed to
+ * authenticate the caller.
+ *
+ * @param active whether the token is active
+ * @param callerName the name of the caller, null if the response has none
+ * @param groups the groups of the caller, empty if the response has none
+ * @param expirationTime the expiration time of the token in seconds since the epoch, null if not known
+ * @param notBefore the time before which the token must not be accepted, null if not known
+ */
+public record IntrospectionResponse(boolean active, String callerName, Set<String> groups, Long expirationTime, Long notBefore) {
+
+    public static final IntrospectionResponse INACTIVE = new IntrospectionResponse(false, null, Set.of(), null, null);
+
+}
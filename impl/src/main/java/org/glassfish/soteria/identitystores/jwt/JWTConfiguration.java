@@ -17,7 +17,26 @@ package org.glassfish.soteria.identitystores.jwt;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * The settings of a JWT authentication mechanism and its identity store.
+ *
+ * <p>
+ * <code>verifiedTokenCacheSize</code> is the maximum number of tokens for which a successful signature
+ * verification is remembered until the token expires. It's not part of the mechanism definition and
+ * is read from the <code>org.glassfish.soteria.jwt.verifiedTokenCacheSize</code> system property; 0 (the
+ * default) verifies the signature of every token.
+ *
+ * <p>
+ * <code>groupsClaim</code> is the claim the groups are read from, with the names of nested claims
+ * separated by dots, e.g. <code>realm_access.roles</code>. <code>groupToRoles</code> maps a group to the
+ * roles it is replaced with; groups that are not mapped are kept as they are. Both are read from the
+ * <code>org.glassfish.soteria.jwt.groupsClaim</code> (default <code>groups</code>) and
+ * <code>org.glassfish.soteria.jwt.groupToRoles</code> system properties, the latter as a comma separated
+ * list of <code>group=role</code> pairs, e.g. <code>realm-admin=admin,realm-admin=operator</code>.
+ */
 public record JWTConfiguration(
 
     String configJwtTokenHeader,
@@ -33,6 +52,10 @@ public record JWTConfiguration(
     long tokenAge,
     long clockSkew,
     Duration keyCacheTTL,
+    int verifiedTokenCacheSize,
+
+    String groupsClaim,
+    Map<String, Set<String>> groupToRoles,
 
     boolean enabledNamespace,
     String customNamespace,
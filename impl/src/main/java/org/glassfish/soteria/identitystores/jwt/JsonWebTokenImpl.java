@@ -15,12 +15,17 @@
  */
 package org.glassfish.soteria.identitystores.jwt;
 
+import jakarta.json.Json;
 import jakarta.json.JsonArray;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonReader;
 import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
 import jakarta.security.enterprise.CallerPrincipal;
 
+import java.io.ByteArrayInputStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -28,6 +33,11 @@ import java.util.Set;
 import static java.util.stream.Collectors.toSet;
 
 /**
+ * A verified JWT.
+ *
+ * <p>
+ * When created from a token payload, the claims needed for validation are held in fields, and the
+ * other claims are only parsed from the payload when first asked for.
  *
  * @author Arjan Tijms
  */
@@ -35,23 +45,136 @@ public class JsonWebTokenImpl extends CallerPrincipal {
 
     private static final long serialVersionUID = 1L;
 
-    private final Map<String, JsonValue> claims;
+    private static final String RAW_TOKEN = "raw_token";
+
+    private final String issuer;
+    private final Long expirationTime;
+    private final Long issuedAtTime;
+    private final Set<String> audience;
+    private final Set<String> groups;
+    private final String rawToken;
+
+    // The decoded payload, from which the claims are parsed when needed
+    private final byte[] payload;
+    private final String namespace;
+
+    private volatile Map<String, JsonValue> claims;
 
     public JsonWebTokenImpl(String callerName, Map<String, JsonValue> claims) {
         super(callerName);
         this.claims = claims;
+
+        this.issuer = claims.get("iss") instanceof JsonString iss ? iss.getString() : null;
+        this.expirationTime = claims.get("exp") instanceof JsonNumber exp ? exp.longValue() : null;
+        this.issuedAtTime = claims.get("iat") instanceof JsonNumber iat ? iat.longValue() : null;
+        this.audience = toStringSet(claims.get("aud"));
+        this.groups = toStringSet(claims.get("groups"));
+        this.rawToken = claims.get(RAW_TOKEN) instanceof JsonString raw ? raw.getString() : null;
+        this.payload = null;
+        this.namespace = null;
+    }
+
+    /**
+     * @param callerName the name of the caller
+     * @param issuer the iss claim
+     * @param expirationTime the exp claim
+     * @param issuedAtTime the iat claim
+     * @param audience the aud claim, or null if absent
+     * @param groups the groups, read from the configured groups claim, or null if absent
+     * @param rawToken the token as received
+     * @param payload the decoded JSON payload of the token
+     * @param namespace the namespace to strip from the names of the claims, or null
+     */
+    public JsonWebTokenImpl(String callerName, String issuer, Long expirationTime, Long issuedAtTime, Set<String> audience, Set<String> groups,
+            String rawToken, byte[] payload, String namespace) {
+        super(callerName);
+        this.issuer = issuer;
+        this.expirationTime = expirationTime;
+        this.issuedAtTime = issuedAtTime;
+        this.audience = audience;
+        this.groups = groups;
+        this.rawToken = rawToken;
+        this.payload = payload;
+        this.namespace = namespace;
     }
 
     public Map<String, JsonValue> claims() {
-        return claims;
+        Map<String, JsonValue> parsedClaims = claims;
+        if (parsedClaims == null) {
+            parsedClaims = parseClaims();
+            claims = parsedClaims;
+        }
+
+        return parsedClaims;
     }
 
     public JsonValue claimValue(String claimName) {
-        return claims.get(claimName);
+        return claims().get(claimName);
     }
 
     public Set<String> claimSet(String claimName) {
-        JsonValue claimValue =  claims.get(claimName);
+        return toStringSet(claims().get(claimName));
+    }
+
+    public Set<String> getClaimNames() {
+        if (claims().isEmpty()) {
+            return null;
+        }
+
+        return claims().keySet();
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public Long getExpirationTime() {
+        return expirationTime;
+    }
+
+    public Long getIssuedAtTime() {
+        return issuedAtTime;
+    }
+
+    /**
+     * @return the aud claim, or null if absent
+     */
+    public Set<String> getAudience() {
+        return audience;
+    }
+
+    /**
+     * @return the groups, read from the configured groups claim, or null if absent
+     */
+    public Set<String> getGroups() {
+        return groups;
+    }
+
+    public String getRawToken() {
+        return rawToken;
+    }
+
+    private Map<String, JsonValue> parseClaims() {
+        Map<String, JsonValue> parsedClaims = new HashMap<>();
+        if (payload == null) {
+            return parsedClaims;
+        }
+
+        try (JsonReader reader = Json.createReader(new ByteArrayInputStream(payload))) {
+            reader.readObject().forEach((name, value) -> {
+                String claimName = namespace != null && name.startsWith(namespace) ? name.substring(namespace.length()) : name;
+                parsedClaims.put(claimName, value);
+            });
+        }
+
+        if (rawToken != null) {
+            parsedClaims.put(RAW_TOKEN, Json.createValue(rawToken));
+        }
+
+        return parsedClaims;
+    }
+
+    private static Set<String> toStringSet(JsonValue claimValue) {
         if (claimValue == null) {
             return null;
         }
@@ -70,13 +193,4 @@ public class JsonWebTokenImpl extends CallerPrincipal {
 
     }
 
-    public Set<String> getClaimNames() {
-        if (claims.isEmpty()) {
-            return null;
-        }
-
-        return claims.keySet();
-    }
-
-
 }
@@ -34,13 +34,20 @@ import java.security.PublicKey;
 import java.security.spec.ECGenParameterSpec;
 import java.security.spec.ECParameterSpec;
 import java.security.spec.ECPoint;
+import java.security.spec.ECPrivateKeySpec;
 import java.security.spec.ECPublicKeySpec;
+import java.security.spec.EdECPoint;
+import java.security.spec.EdECPublicKeySpec;
 import java.security.spec.InvalidKeySpecException;
+import java.security.spec.NamedParameterSpec;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.RSAPrivateKeySpec;
 import java.security.spec.RSAPublicKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Logger;
 
@@ -55,6 +62,13 @@ public class KeyParser {
 
     private static final String RSA_ALGORITHM = "RSA";
     private static final String EC_ALGORITHM = "EC";
+    private static final String EDDSA_ALGORITHM = "EdDSA";
+
+    // JWK curve names (RFC 7518, section 6.2.1.1) and their standard names
+    private static final Map<String, String> EC_CURVES = Map.of(
+        "P-256", "secp256r1",
+        "P-384", "secp384r1",
+        "P-521", "secp521r1");
 
     enum KeyFormat {
         PEM,
@@ -65,13 +79,25 @@ public class KeyParser {
     }
 
     public PublicKey createPublicKey(String key, String keyId) {
+        return createVerificationKey(key, keyId).publicKey();
+    }
+
+    /**
+     * Creates a public key together with the algorithm the key is restricted to, if any.
+     *
+     * @param key the raw key material
+     * @param keyId the key ID, may be null
+     * @return the key and the value of the <code>alg</code> member of its JWK, which is null for
+     *         keys that are not a JWK or that have no such member
+     */
+    public VerificationKey createVerificationKey(String key, String keyId) {
         try {
             return switch (detectKeyFormat(key)) {
-                case PEM, BASE64_DER -> createPublicKeyFromPem(key);
-                case JSON_JWK_OR_JWKS, BASE64_JSON_JWK_OR_JWKS -> createPublicKeyFromJWKS(key, keyId);
+                case PEM, BASE64_DER -> new VerificationKey(createPublicKeyFromPem(key), null);
+                case JSON_JWK_OR_JWKS, BASE64_JSON_JWK_OR_JWKS -> createVerificationKeyFromJWKS(key, keyId);
                 default -> throw new DeploymentException("Unrecognized public key format");
             };
-        } catch (DeploymentException e) {
+        } catch (DeploymentException | UnknownKeyIdException e) {
             throw e;
         } catch (Exception e) {
             throw new DeploymentException(e);
@@ -85,13 +111,43 @@ public class KeyParser {
                 case JSON_JWK_OR_JWKS, BASE64_JSON_JWK_OR_JWKS -> createPrivateKeyFromJWKS(key, keyId);
                 default -> throw new DeploymentException("Unrecognized private key format");
             };
-        } catch (DeploymentException e) {
+        } catch (DeploymentException | UnknownKeyIdException e) {
             throw e;
         } catch (Exception e) {
             throw new DeploymentException(e);
         }
     }
 
+    /**
+     * Returns the key IDs of the keys in a JWK set, in the order of the set.
+     *
+     * @param key the raw key material
+     * @return the value of the <code>kid</code> member of each key in the set, which is null for keys
+     *         without one; or null if the key material is not a JWK set
+     */
+    public List<String> getKeyIds(String key) {
+        KeyFormat keyFormat = detectKeyFormat(key);
+        if (keyFormat != KeyFormat.JSON_JWK_OR_JWKS && keyFormat != KeyFormat.BASE64_JSON_JWK_OR_JWKS) {
+            return null;
+        }
+
+        try {
+            JsonArray keys = parseJwks(key).getJsonArray("keys");
+            if (keys == null) {
+                return null;
+            }
+
+            List<String> keyIds = new ArrayList<>(keys.size());
+            for (JsonValue value : keys) {
+                keyIds.add(value.asJsonObject().getString("kid", null));
+            }
+
+            return keyIds;
+        } catch (Exception e) {
+            throw new DeploymentException(e);
+        }
+    }
+
     private PublicKey createPublicKeyFromPem(String key) throws Exception {
        X509EncodedKeySpec publicKeySpec =
            new X509EncodedKeySpec(
@@ -105,14 +161,28 @@ public class KeyParser {
            // Try ECDSA
            LOGGER.finer("Caught InvalidKeySpecException creating public key from PEM using RSA algorithm, " +
                    "attempting again using ECDSA");
+       }
 
+       try {
            return KeyFactory.getInstance(EC_ALGORITHM)
                             .generatePublic(publicKeySpec);
+       } catch (InvalidKeySpecException invalidKeySpecException) {
+           // Try EdDSA
+           LOGGER.finer("Caught InvalidKeySpecException creating public key from PEM using ECDSA algorithm, " +
+                   "attempting again using EdDSA");
+
+           return KeyFactory.getInstance(EDDSA_ALGORITHM)
+                            .generatePublic(publicKeySpec);
        }
    }
 
-   private PublicKey createPublicKeyFromJWKS(String jwksValue, String keyId) throws Exception {
+   private VerificationKey createVerificationKeyFromJWKS(String jwksValue, String keyId) throws Exception {
        JsonObject jwk = parseJwk(jwksValue, keyId);
+
+       return new VerificationKey(createPublicKeyFromJWK(jwk), jwk.getString("alg", null));
+   }
+
+   private PublicKey createPublicKeyFromJWK(JsonObject jwk) throws Exception {
        String kty = getKty(jwk);
 
        var decoder = Base64.getUrlDecoder();
@@ -125,52 +195,104 @@ public class KeyParser {
                                     new BigInteger(1, decoder.decode(jwk.getString("e")))));
 
        } else if (kty.equals("EC")) {
-           // Get parameters
-           AlgorithmParameters parameters = AlgorithmParameters.getInstance(EC_ALGORITHM);
-
-           // Check CRV
-           String crv = jwk.getString("crv", null);
-           if (!"P-256".equals(crv)) {
-               throw new DeploymentException("Could not get EC key from JWKS: crv does not equal P-256");
-           }
-
-           parameters.init(new ECGenParameterSpec("secp256r1"));
-
            return KeyFactory.getInstance(EC_ALGORITHM)
                    .generatePublic(
                        new ECPublicKeySpec(
                            new ECPoint(
                                new BigInteger(1, decoder.decode(jwk.getString("x"))),
                                new BigInteger(1, decoder.decode(jwk.getString("y")))),
-                           parameters.getParameterSpec(ECParameterSpec.class)));
+                           getCurveParameters(jwk)));
+
+       } else if (kty.equals("OKP")) {
+           if (!"Ed25519".equals(jwk.getString("crv", null))) {
+               throw new DeploymentException("Could not get OKP key from JWKS: crv does not equal Ed25519");
+           }
+
+           return KeyFactory.getInstance(EDDSA_ALGORITHM)
+                   .generatePublic(
+                       new EdECPublicKeySpec(
+                           NamedParameterSpec.ED25519,
+                           decodeEdwardsPoint(decoder.decode(jwk.getString("x")))));
        } else {
-           throw new DeploymentException("Could not determine key type - JWKS kty field does not equal RSA or EC");
+           throw new DeploymentException("Could not determine key type - JWKS kty field does not equal RSA, EC or OKP");
        }
     }
 
+    /**
+     * Decodes an Ed25519 public key as encoded in RFC 8032, section 5.1.2: the y coordinate in
+     * little-endian order, with the lowest bit of x in the most significant bit of the last byte.
+     */
+    private static EdECPoint decodeEdwardsPoint(byte[] encoded) {
+        if (encoded.length != 32) {
+            throw new DeploymentException("Could not get OKP key from JWKS: x is not 32 bytes long");
+        }
+
+        boolean xOdd = (encoded[31] & 0x80) != 0;
+
+        byte[] y = new byte[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            y[i] = encoded[encoded.length - 1 - i];
+        }
+        y[0] &= 0x7F;
+
+        return new EdECPoint(xOdd, new BigInteger(1, y));
+    }
+
     private PrivateKey createPrivateKeyFromPem(String key) throws Exception {
-        return
-            KeyFactory.getInstance(RSA_ALGORITHM)
-                      .generatePrivate(
-                          new PKCS8EncodedKeySpec(
-                              Base64.getDecoder()
-                                    .decode(trimPem(key))));
+        PKCS8EncodedKeySpec privateKeySpec =
+            new PKCS8EncodedKeySpec(
+                Base64.getDecoder()
+                      .decode(trimPem(key)));
+
+        try {
+            return KeyFactory.getInstance(RSA_ALGORITHM)
+                             .generatePrivate(privateKeySpec);
+        } catch (InvalidKeySpecException invalidKeySpecException) {
+            // Try EC, for ECDH-ES key agreement
+            LOGGER.finer("Caught InvalidKeySpecException creating private key from PEM using RSA algorithm, " +
+                    "attempting again using EC");
+
+            return KeyFactory.getInstance(EC_ALGORITHM)
+                             .generatePrivate(privateKeySpec);
+        }
     }
 
     private PrivateKey createPrivateKeyFromJWKS(String jwksValue, String keyId) throws Exception {
         JsonObject jwk = parseJwk(jwksValue, keyId);
+        String kty = getKty(jwk);
 
-        if (getKty(jwk).equals(RSA_ALGORITHM)) {
-            var decoder = Base64.getUrlDecoder();
+        var decoder = Base64.getUrlDecoder();
 
+        if (kty.equals(RSA_ALGORITHM)) {
             return KeyFactory.getInstance(RSA_ALGORITHM)
                              .generatePrivate(
                                  new RSAPrivateKeySpec(
                                      new BigInteger(1, decoder.decode(jwk.getString("n"))),
                                      new BigInteger(1, decoder.decode(jwk.getString("d")))));
+        } else if (kty.equals(EC_ALGORITHM)) {
+            return KeyFactory.getInstance(EC_ALGORITHM)
+                             .generatePrivate(
+                                 new ECPrivateKeySpec(
+                                     new BigInteger(1, decoder.decode(jwk.getString("d"))),
+                                     getCurveParameters(jwk)));
         } else {
-            throw new DeploymentException("Could not determine key type - JWKS kty field does not equal RSA");
+            throw new DeploymentException("Could not determine key type - JWKS kty field does not equal RSA or EC");
+        }
+    }
+
+    private static ECParameterSpec getCurveParameters(JsonObject jwk) throws Exception {
+        // Check CRV
+        String crv = jwk.getString("crv", null);
+        String curveName = crv != null ? EC_CURVES.get(crv) : null;
+        if (curveName == null) {
+            throw new DeploymentException("Could not get EC key from JWKS: crv is not one of P-256, P-384 or P-521");
         }
+
+        // Get parameters
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance(EC_ALGORITHM);
+        parameters.init(new ECGenParameterSpec(curveName));
+
+        return parameters.getParameterSpec(ECParameterSpec.class);
     }
 
     private static KeyFormat detectKeyFormat(String key) {
@@ -253,7 +375,7 @@ public class KeyParser {
             }
         }
 
-        throw new IllegalStateException("No matching JWK for KeyID.");
+        throw new UnknownKeyIdException();
     }
 
     private static String getKty(JsonObject jwk) {
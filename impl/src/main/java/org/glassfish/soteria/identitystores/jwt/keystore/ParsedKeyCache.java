@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.jwt.keystore;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Caches keys parsed from raw key material, indexed by key ID.
+ *
+ * <p>
+ * All parsed keys belong to a single generation that is tied to the raw key material they were
+ * parsed from. Every key of a generation is parsed once, when the raw key material is first seen,
+ * so looking up a key ID that is not in the raw key material is a plain map miss. When the raw key
+ * material is replaced (e.g. because the {@link RawKeyLoader} TTL expired and the key was read
+ * again), a new generation is swapped in atomically, and the keys of the previous generation are no
+ * longer handed out.
+ *
+ * @param <T> the type of the parsed key
+ */
+final class ParsedKeyCache<T> {
+
+    private final BiFunction<String, String, ? extends T> parser;
+    private final Function<String, List<String>> keyIdReader;
+
+    private volatile Generation<T> generation = new Generation<>(null, null, Map.of());
+
+    /**
+     * @param parser function that parses a key from raw key material and a key ID
+     * @param keyIdReader function that returns the key IDs in raw key material, or null if the raw
+     *        key material has a single key that is used for every key ID
+     */
+    ParsedKeyCache(BiFunction<String, String, ? extends T> parser, Function<String, List<String>> keyIdReader) {
+        this.parser = parser;
+        this.keyIdReader = keyIdReader;
+    }
+
+    /**
+     * Returns the parsed key for the given key ID.
+     *
+     * @param rawKey the current raw key material
+     * @param keyId the key ID, may be null
+     * @return the parsed key
+     * @throws UnknownKeyIdException if the raw key material has no key for the key ID
+     */
+    T get(String rawKey, String keyId) {
+        Generation<T> current = currentGeneration(rawKey);
+
+        ParsedKey<T> parsedKey = keyId == null || current.keysById == null ? current.defaultKey : current.keysById.get(keyId);
+        if (parsedKey == null) {
+            throw new UnknownKeyIdException();
+        }
+
+        return parsedKey.get();
+    }
+
+    private Generation<T> currentGeneration(String rawKey) {
+        Generation<T> current = generation;
+        if (current.rawKey == rawKey) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = generation;
+            if (current.rawKey == rawKey) {
+                return current;
+            }
+
+            // Same material read again after a TTL expiry; keep the keys that were already parsed
+            current = rawKey.equals(current.rawKey) ? current.withRawKey(rawKey) : parseGeneration(rawKey);
+            generation = current;
+
+            return current;
+        }
+    }
+
+    private Generation<T> parseGeneration(String rawKey) {
+        List<String> keyIds = keyIdReader.apply(rawKey);
+        if (keyIds == null) {
+            return new Generation<>(rawKey, parse(rawKey, null), null);
+        }
+
+        Map<String, ParsedKey<T>> keysById = new HashMap<>();
+        for (String keyId : keyIds) {
+            if (keyId != null && !keysById.containsKey(keyId)) {
+                keysById.put(keyId, parse(rawKey, keyId));
+            }
+        }
+
+        // Without a key ID the first key of the set is used
+        ParsedKey<T> defaultKey = keyIds.isEmpty() ? null :
+            keyIds.get(0) != null ? keysById.get(keyIds.get(0)) : parse(rawKey, null);
+
+        return new Generation<>(rawKey, defaultKey, keysById);
+    }
+
+    private ParsedKey<T> parse(String rawKey, String keyId) {
+        try {
+            return new ParsedKey<>(parser.apply(rawKey, keyId), null);
+        } catch (RuntimeException e) {
+            // Only fails the tokens that use this key
+            return new ParsedKey<>(null, e);
+        }
+    }
+
+    private record ParsedKey<T>(T key, RuntimeException failure) {
+        T get() {
+            if (failure != null) {
+                throw failure;
+            }
+
+            return key;
+        }
+    }
+
+    /**
+     * @param keysById the keys of a key set, or null if the raw key material is a single key
+     */
+    private record Generation<T>(String rawKey, ParsedKey<T> defaultKey, Map<String, ParsedKey<T>> keysById) {
+        Generation<T> withRawKey(String rawKey) {
+            return new Generation<>(rawKey, defaultKey, keysById);
+        }
+    }
+}
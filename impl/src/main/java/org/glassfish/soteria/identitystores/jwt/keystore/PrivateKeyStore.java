@@ -22,19 +22,28 @@ public class PrivateKeyStore {
 
     private final RawKeyLoader keyLoader;
     private final KeyParser keyParser;
+    private final ParsedKeyCache<PrivateKey> privateKeys;
 
     public PrivateKeyStore(Duration defaultCacheTTL, String keyLocation) {
         this.keyLoader = new RawKeyLoader(keyLocation, defaultCacheTTL);
         this.keyParser = new KeyParser();
+        this.privateKeys = new ParsedKeyCache<>(keyParser::createPrivateKey, keyParser::getKeyIds);
     }
 
+    /**
+     * Returns the private key with the given key ID. The key is parsed once for as long as the
+     * raw key material it was read from is in use, so the same instance is returned until then.
+     *
+     * @param keyId the key ID from the token header, may be null
+     * @return the private key
+     */
     public PrivateKey getPrivateKey(String keyId) {
         String rawKey = keyLoader.readRawPublicKey();
         if (rawKey == null) {
-            throw new IllegalStateException("No PublicKey found");
+            throw new IllegalStateException("No PrivateKey found");
         }
 
-        return keyParser.createPrivateKey(rawKey, keyId);
+        return privateKeys.get(rawKey, keyId);
     }
 
 }
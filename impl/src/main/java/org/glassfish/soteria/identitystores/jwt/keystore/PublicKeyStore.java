@@ -18,19 +18,34 @@ package org.glassfish.soteria.identitystores.jwt.keystore;
 import java.security.PublicKey;
 import java.time.Duration;
 
+import org.glassfish.soteria.utils.SystemProperties;
+
 public class PublicKeyStore {
 
+    // Minimum time between reloads of the key set caused by tokens with an unknown key ID
+    private static final Duration UNKNOWN_KEY_ID_RELOAD_INTERVAL = SystemProperties.getSeconds("jwt.unknownKeyIdReloadInterval", Duration.ofSeconds(30));
+
     private final RawKeyLoader keyLoader;
     private final KeyParser keyParser;
+    private final ParsedKeyCache<VerificationKey> publicKeys;
     private final String key;
 
     public PublicKeyStore(Duration defaultCacheTTL, String key, String keyLocation) {
         this.keyLoader = new RawKeyLoader(keyLocation, defaultCacheTTL);
         this.keyParser = new KeyParser();
+        this.publicKeys = new ParsedKeyCache<>(keyParser::createVerificationKey, keyParser::getKeyIds);
         this.key = key;
     }
 
     public PublicKey getPublicKey(String keyID) {
+        return getVerificationKey(keyID).publicKey();
+    }
+
+    /**
+     * @param keyID the key ID from the token header, may be null
+     * @return the key with the given ID, and the algorithm it is restricted to by its JWK
+     */
+    public VerificationKey getVerificationKey(String keyID) {
         String rawKey = key;
         if (rawKey.isEmpty()) {
             rawKey = keyLoader.readRawPublicKey();
@@ -39,7 +54,21 @@ public class PublicKeyStore {
             }
         }
 
-        return keyParser.createPublicKey(rawKey, keyID);
+        try {
+            return publicKeys.get(rawKey, keyID);
+        } catch (UnknownKeyIdException e) {
+            if (!key.isEmpty()) {
+                throw e;
+            }
+
+            // The key set may have been rotated since it was loaded; reload it once and try again
+            String reloadedRawKey = keyLoader.reloadRawPublicKey(UNKNOWN_KEY_ID_RELOAD_INTERVAL);
+            if (reloadedRawKey == null || reloadedRawKey.equals(rawKey)) {
+                throw e;
+            }
+
+            return publicKeys.get(reloadedRawKey, keyID);
+        }
     }
 
 }
@@ -19,6 +19,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
@@ -26,35 +27,64 @@ import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
 import org.glassfish.soteria.identitystores.jwt.keystore.Cache.CacheItem;
+import org.glassfish.soteria.utils.SystemProperties;
 
 import static java.lang.Character.isWhitespace;
 import static java.lang.Long.parseLong;
 import static java.lang.System.lineSeparator;
 import static java.lang.Thread.currentThread;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.logging.Level.WARNING;
 import static java.util.stream.Collectors.joining;
+import static org.glassfish.soteria.utils.ExecutorServices.newThreadPerTaskExecutor;
+import static org.glassfish.soteria.utils.ExecutorServices.withContextClassLoader;
 
 public class RawKeyLoader {
 
     private static final Logger LOGGER = Logger.getLogger(RawKeyLoader.class.getName());
 
+    private static final int CONNECT_TIMEOUT_MILLIS = (int) SystemProperties.getSeconds("jwt.keyConnectTimeout", Duration.ofSeconds(10)).toMillis();
+    private static final int READ_TIMEOUT_MILLIS = (int) SystemProperties.getSeconds("jwt.keyReadTimeout", Duration.ofSeconds(10)).toMillis();
+
     private final String keyLocation;
     private final Cache<String> cache;
 
     public RawKeyLoader(String keyLocation, Duration defaultCacheTTL) {
         this.keyLocation = keyLocation;
-        cache = new Cache<String>(defaultCacheTTL);
+        cache = new Cache<String>(defaultCacheTTL, SystemProperties.getSeconds("jwt.keyMaxStale", null));
     }
 
     public String readRawPublicKey() {
-        return cache.computeIfAbsentOrExpired(() -> readKeyFromLocation(keyLocation));
+        return cache.get(previous -> readKeyFromLocation(keyLocation, previous));
+    }
+
+    /**
+     * Reloads the key right away, unless that was already done less than <code>minInterval</code> ago.
+     * Concurrent callers share a single reload.
+     *
+     * @param minInterval the minimum time between two reloads
+     * @return the current key
+     */
+    public String reloadRawPublicKey(Duration minInterval) {
+        return cache.reload(previous -> readKeyFromLocation(keyLocation, previous), minInterval);
     }
 
-    private CacheItem<String> readKeyFromLocation(String keyLocation) {
+    private CacheItem<String> readKeyFromLocation(String keyLocation, CacheItem<String> previous) {
         // Try if keyLocation refers to the classpath, e.g. "publicKey.pem"
         URL keyURL = currentThread().getContextClassLoader().getResource(keyLocation);
 
@@ -66,18 +96,35 @@ public class RawKeyLoader {
             }
         }
         if (keyURL == null) {
-            return new CacheItem<>(null, null);
+            return CacheItem.withDefaultTTL(null);
         }
 
         try {
-            return readKeyFromURL(keyURL);
+            return readKeyFromURL(keyURL, previous);
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to read key.", ex);
         }
     }
 
-    private CacheItem<String> readKeyFromURL(URL keyURL) throws IOException {
+    private CacheItem<String> readKeyFromURL(URL keyURL, CacheItem<String> previous) throws IOException {
         URLConnection connection = keyURL.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+
+        if (connection instanceof HttpURLConnection httpConnection && previous != null && previous.payload() != null) {
+            // Let the server answer with 304 Not Modified if the keys didn't change
+            if (previous.entityTag() != null) {
+                httpConnection.setRequestProperty("If-None-Match", previous.entityTag());
+            }
+            if (previous.lastModified() != null) {
+                httpConnection.setRequestProperty("If-Modified-Since", previous.lastModified());
+            }
+
+            if (httpConnection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                httpConnection.getInputStream().close();
+                return new CacheItem<>(previous.payload(), resolveCacheTTL(connection), previous.entityTag(), previous.lastModified());
+            }
+        }
 
         Charset charset = resolveCharset(connection);
         Duration cacheTTL = resolveCacheTTL(connection);
@@ -85,7 +132,11 @@ public class RawKeyLoader {
         try (InputStream inputStream = connection.getInputStream();
              BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, charset))) {
 
-            return CacheItem.of(reader.lines().collect(joining(lineSeparator())), cacheTTL);
+            return new CacheItem<>(
+                reader.lines().collect(joining(lineSeparator())),
+                cacheTTL,
+                connection.getHeaderField("ETag"),
+                connection.getHeaderField("Last-Modified"));
         }
     }
 
@@ -184,75 +235,219 @@ public class RawKeyLoader {
 
 }
 
+/**
+ * Caches a single value, such as a key set, that can be slow to load.
+ *
+ * <p>
+ * Only the first load blocks the caller. After that, the first caller past a randomly jittered point
+ * between 80% and 90% of the TTL triggers a refresh in the background, while everyone keeps getting the
+ * current value. If the value expires before the refresh completed, for instance because the key server
+ * is unavailable, the previous value is still served for at most <code>maxStale</code> beyond its TTL.
+ * Failed refreshes are retried with an exponential backoff, bounded by the maximum staleness.
+ *
+ * <p>
+ * Callers that have to wait for a load share a single one, without holding a lock while the value
+ * is being loaded.
+ */
 final class Cache<T> {
 
+    private static final Logger LOGGER = Logger.getLogger(Cache.class.getName());
+
+    private static final Executor REFRESH_EXECUTOR = newThreadPerTaskExecutor("soteria-key-refresh");
+
+    private static final long MIN_BACKOFF_NANOS = SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_NANOS = MINUTES.toNanos(5);
+
     private final Duration defaultTTL;
-    private volatile State<T> state = State.uninitialized();
+    private final Duration maxStale;
+
+    private volatile State<T> state;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicReference<CompletableFuture<T>> pendingLoad = new AtomicReference<>();
+    private volatile long lastReloadNanos = System.nanoTime() - Long.MAX_VALUE / 2;
 
-    public Cache(Duration defaultTTL) {
+    // Backoff after failed background refreshes, guarded by refreshing
+    private int failedRefreshes;
+    private volatile long nextRefreshAttemptNanos;
+
+    /**
+     * @param defaultTTL the TTL for values that don't specify one
+     * @param maxStale how long an expired value may still be served while it can't be refreshed; null to
+     *        use the TTL of the value
+     */
+    public Cache(Duration defaultTTL, Duration maxStale) {
         this.defaultTTL = defaultTTL;
+        this.maxStale = maxStale;
     }
 
-    public <E extends Exception> T computeIfAbsentOrExpired(ThrowingItemSupplier<? extends T, E> supplier) throws E {
+    /**
+     * @param loader loads the value; receives the previously loaded item, or null, to allow conditional requests
+     * @return the current value
+     */
+    public T get(Loader<T> loader) {
         State<T> current = state;
         long now = System.nanoTime();
 
-        if (current.isExpired(now)) {
-            refresh(now, supplier);
-            current = state;
+        if (current == null || now - current.staleUntilNanos() >= 0) {
+            return load(now, loader);
         }
 
-        return current.value;
+        if (now - current.refreshAtNanos() >= 0) {
+            refreshInBackground(now, loader);
+        }
+
+        return current.item().payload();
     }
 
-    private <E extends Exception> void refresh(long now, ThrowingItemSupplier<? extends T, E> supplier) throws E {
-        synchronized (this) {
-            if (!state.isExpired(now)) {
-                return;
+    private T load(long now, Loader<T> loader) {
+        return loadShared(() -> {
+            State<T> current = state;
+            if (current != null && now - current.staleUntilNanos() < 0) {
+                // Loaded by another caller in the meantime
+                return current.item().payload();
             }
 
-            CacheItem<? extends T> item = supplier.get();
-            Duration ttl = item.ttl() != null ? item.ttl() : defaultTTL;
+            CacheItem<T> item = loader.load(current != null ? current.item() : null);
+            update(item);
 
-            state = new State<>(item.payload(), System.nanoTime() + ttl.toNanos(), true);
-        }
+            return item.payload();
+        });
     }
 
-    @FunctionalInterface
-    public interface ThrowingItemSupplier<T, E extends Exception> {
-        CacheItem<T> get() throws E;
+    /**
+     * Loads the value right away, unless that was already attempted less than <code>minInterval</code> ago,
+     * in which case the current value is returned. Concurrent callers wait for a single load. If loading
+     * fails, the current value is kept.
+     */
+    public T reload(Loader<T> loader, Duration minInterval) {
+        long minIntervalNanos = minInterval.toNanos();
+
+        if (System.nanoTime() - lastReloadNanos < minIntervalNanos) {
+            return get(loader);
+        }
+
+        return loadShared(() -> {
+            State<T> current = state;
+            long now = System.nanoTime();
+            if (now - lastReloadNanos < minIntervalNanos && current != null && now - current.staleUntilNanos() < 0) {
+                // Reloaded by another caller in the meantime
+                return current.item().payload();
+            }
+            lastReloadNanos = now;
+
+            try {
+                CacheItem<T> item = loader.load(current != null ? current.item() : null);
+                update(item);
+
+                return item.payload();
+            } catch (RuntimeException e) {
+                if (current == null) {
+                    throw e;
+                }
+
+                LOGGER.log(WARNING, "Reloading keys failed, keeping previous keys", e);
+                return current.item().payload();
+            }
+        });
     }
 
     /**
-     * ttl == null means: use the cache's default TTL.
+     * Runs the given load on the calling thread, unless a load is already in progress, in which case
+     * the outcome of that load is returned instead.
      */
-    public static record CacheItem<T>(T payload, Duration ttl) {
-        public static <T> CacheItem<T> of(T payload, Duration ttl) {
-            return new CacheItem<>(payload, ttl);
+    private T loadShared(Supplier<T> load) {
+        CompletableFuture<T> newLoad = new CompletableFuture<>();
+        CompletableFuture<T> runningLoad = pendingLoad.compareAndExchange(null, newLoad);
+        if (runningLoad != null) {
+            return join(runningLoad);
         }
 
-        public static <T> CacheItem<T> withDefaultTTL(T payload) {
-            return new CacheItem<>(payload, null);
+        try {
+            T payload = load.get();
+            newLoad.complete(payload);
+
+            return payload;
+        } catch (RuntimeException | Error e) {
+            newLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLoad.compareAndSet(newLoad, null);
         }
     }
 
-    private static final class State<T> {
-        private final T value;
-        private final long expiresAtNanos;
-        private final boolean initialized;
+    private static <T> T join(CompletableFuture<T> pendingLoad) {
+        try {
+            return pendingLoad.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
 
-        private State(T value, long expiresAtNanos, boolean initialized) {
-            this.value = value;
-            this.expiresAtNanos = expiresAtNanos;
-            this.initialized = initialized;
+            throw e;
         }
+    }
 
-        private static <T> State<T> uninitialized() {
-            return new State<>(null, 0L, false);
+    private void refreshInBackground(long now, Loader<T> loader) {
+        if (now - nextRefreshAttemptNanos < 0 || !refreshing.compareAndSet(false, true)) {
+            return;
         }
 
-        private boolean isExpired(long nowNanos) {
-            return !initialized || nowNanos >= expiresAtNanos;
+        Supplier<Void> refresh = withContextClassLoader(() -> {
+            try {
+                State<T> current = state;
+                update(loader.load(current != null ? current.item() : null));
+                failedRefreshes = 0;
+            } catch (RuntimeException e) {
+                failedRefreshes++;
+                long backoff = Math.min(MIN_BACKOFF_NANOS << Math.min(failedRefreshes - 1, 20), MAX_BACKOFF_NANOS);
+                nextRefreshAttemptNanos = System.nanoTime() + backoff;
+
+                LOGGER.log(WARNING, "Refreshing keys failed, serving previous keys and retrying in " + NANOSECONDS.toSeconds(backoff) + "s", e);
+            } finally {
+                refreshing.set(false);
+            }
+
+            return null;
+        });
+
+        try {
+            REFRESH_EXECUTOR.execute(refresh::get);
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
         }
     }
+
+    private void update(CacheItem<T> item) {
+        Duration ttl = item.ttl() != null ? item.ttl() : defaultTTL;
+        long ttlNanos = Math.max(0, ttl.toNanos());
+
+        // Refresh somewhere between 80% and 90% of the TTL, so that instances don't all refresh at the same time
+        long refreshAheadNanos = (long) (ttlNanos * (0.1 + 0.1 * ThreadLocalRandom.current().nextDouble()));
+        long staleNanos = Math.max(0, maxStale != null ? maxStale.toNanos() : ttlNanos);
+
+        long now = System.nanoTime();
+        state = new State<>(item, now + ttlNanos - refreshAheadNanos, now + ttlNanos + staleNanos);
+    }
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        CacheItem<T> load(CacheItem<T> previous);
+    }
+
+    /**
+     * ttl == null means: use the cache's default TTL. The entity tag and last modified date of the
+     * response are kept to make the next request conditional.
+     */
+    public static record CacheItem<T>(T payload, Duration ttl, String entityTag, String lastModified) {
+        public static <T> CacheItem<T> of(T payload, Duration ttl) {
+            return new CacheItem<>(payload, ttl, null, null);
+        }
+
+        public static <T> CacheItem<T> withDefaultTTL(T payload) {
+            return new CacheItem<>(payload, null, null, null);
+        }
+    }
+
+    private static record State<T>(CacheItem<T> item, long refreshAtNanos, long staleUntilNanos) {
+    }
 }
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.jwt.keystore;
+
+import java.security.PublicKey;
+
+/**
+ * A public key to verify token signatures with.
+ *
+ * @param publicKey the key
+ * @param algorithm the only JWS algorithm the key may be used with, or null if the key doesn't restrict it
+ */
+public record VerificationKey(PublicKey publicKey, String algorithm) {
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.jwt.token;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.util.Base64URL;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.EdECPublicKey;
+import java.util.Set;
+
+import static com.nimbusds.jose.JWSAlgorithm.EdDSA;
+
+/**
+ * Verifies Ed25519 signatures with the EdDSA implementation of the JDK.
+ *
+ * <p>
+ * The Ed25519 verifier of Nimbus needs Google Tink, which is not available on every server, and
+ * takes its key as a JWK instead of the <code>PublicKey</code> the key stores provide.
+ */
+final class EdDSAVerifier implements JWSVerifier {
+
+    private static final String ED25519 = "Ed25519";
+
+    private final EdECPublicKey publicKey;
+    private final JCAContext jcaContext = new JCAContext();
+
+    EdDSAVerifier(EdECPublicKey publicKey) {
+        if (!ED25519.equalsIgnoreCase(publicKey.getParams().getName())) {
+            throw new IllegalStateException("Unsupported EdDSA curve: " + publicKey.getParams().getName());
+        }
+
+        this.publicKey = publicKey;
+    }
+
+    @Override
+    public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) throws JOSEException {
+        if (!EdDSA.equals(header.getAlgorithm())) {
+            throw new JOSEException("Unsupported JWS algorithm " + header.getAlgorithm() + ", must be EdDSA");
+        }
+
+        // Like the verifiers of Nimbus, don't accept tokens with critical headers that nobody will process
+        if (header.getCriticalParams() != null && !header.getCriticalParams().isEmpty()) {
+            return false;
+        }
+
+        try {
+            Signature verifier = jcaContext.getProvider() != null ?
+                Signature.getInstance(ED25519, jcaContext.getProvider()) :
+                Signature.getInstance(ED25519);
+
+            verifier.initVerify(publicKey);
+            verifier.update(signingInput);
+
+            return verifier.verify(signature.decode());
+        } catch (InvalidKeyException e) {
+            throw new JOSEException("Invalid EdDSA public key: " + e.getMessage(), e);
+        } catch (SignatureException e) {
+            // Malformed signature
+            return false;
+        } catch (GeneralSecurityException e) {
+            throw new JOSEException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return Set.of(EdDSA);
+    }
+
+    @Override
+    public JCAContext getJCAContext() {
+        return jcaContext;
+    }
+}
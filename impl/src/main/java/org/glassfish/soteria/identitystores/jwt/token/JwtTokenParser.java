@@ -18,6 +18,10 @@ package org.glassfish.soteria.identitystores.jwt.token;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JOSEObjectType;
 import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEDecrypter;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDHDecrypter;
 import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jose.crypto.RSADecrypter;
 import com.nimbusds.jose.crypto.RSASSAVerifier;
@@ -25,47 +29,84 @@ import com.nimbusds.jwt.EncryptedJWT;
 import com.nimbusds.jwt.SignedJWT;
 
 import jakarta.json.Json;
-import jakarta.json.JsonNumber;
-import jakarta.json.JsonReader;
-import jakarta.json.JsonString;
-import jakarta.json.JsonValue;
+import jakarta.json.JsonException;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParser.Event;
 
-import java.io.StringReader;
+import java.io.ByteArrayInputStream;
+import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.EdECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.glassfish.soteria.identitystores.jwt.JsonWebTokenImpl;
 import org.glassfish.soteria.identitystores.jwt.keystore.PrivateKeyStore;
 import org.glassfish.soteria.identitystores.jwt.keystore.PublicKeyStore;
+import org.glassfish.soteria.identitystores.jwt.keystore.VerificationKey;
 
+import static com.nimbusds.jose.JWEAlgorithm.ECDH_ES;
+import static com.nimbusds.jose.JWEAlgorithm.ECDH_ES_A128KW;
+import static com.nimbusds.jose.JWEAlgorithm.ECDH_ES_A192KW;
+import static com.nimbusds.jose.JWEAlgorithm.ECDH_ES_A256KW;
 import static com.nimbusds.jose.JWEAlgorithm.RSA_OAEP;
 import static com.nimbusds.jose.JWEAlgorithm.RSA_OAEP_256;
 import static com.nimbusds.jose.JWSAlgorithm.ES256;
+import static com.nimbusds.jose.JWSAlgorithm.ES384;
+import static com.nimbusds.jose.JWSAlgorithm.ES512;
+import static com.nimbusds.jose.JWSAlgorithm.EdDSA;
+import static com.nimbusds.jose.JWSAlgorithm.PS256;
+import static com.nimbusds.jose.JWSAlgorithm.PS384;
+import static com.nimbusds.jose.JWSAlgorithm.PS512;
 import static com.nimbusds.jose.JWSAlgorithm.RS256;
+import static com.nimbusds.jose.JWSAlgorithm.RS384;
+import static com.nimbusds.jose.JWSAlgorithm.RS512;
 import static org.glassfish.soteria.identitystores.jwt.token.JwtTokenParser.JwtType.detectType;
 
 public class JwtTokenParser {
 
-    private static String exp = "exp";
-    private static String iat = "iat";
-    private static String iss = "iss";
-    private static String preferred_username = "preferred_username";
-    private static String raw_token = "raw_token";
-    private static String sub = "sub";
-    private static String upn = "upn";
+    private static final String aud = "aud";
+    private static final String exp = "exp";
+    private static final String groups = "groups";
+    private static final String iat = "iat";
+    private static final String iss = "iss";
+    private static final String preferred_username = "preferred_username";
+    private static final String sub = "sub";
+    private static final String upn = "upn";
 
-    private static final List<String> REQUIRED_CLAIMS = List.of(iss, exp, iat);
+    private static final int MAX_CACHED_VERIFIERS = 32;
+    private static final int MAX_CACHED_DECRYPTERS = 32;
+
+    private static final Set<JWSAlgorithm> RSA_ALGORITHMS = Set.of(RS256, RS384, RS512, PS256, PS384, PS512);
+    private static final Set<JWSAlgorithm> EC_ALGORITHMS = Set.of(ES256, ES384, ES512);
+
+    @SuppressWarnings("deprecation")
+    private static final Set<JWEAlgorithm> RSA_ENCRYPTION_ALGORITHMS = Set.of(RSA_OAEP, RSA_OAEP_256);
+    private static final Set<JWEAlgorithm> EC_ENCRYPTION_ALGORITHMS = Set.of(ECDH_ES, ECDH_ES_A128KW, ECDH_ES_A192KW, ECDH_ES_A256KW);
 
     private final boolean enableNamespacedClaims;
     private final String customNamespace;
 
+    // The path to the groups claim, e.g. [realm_access, roles] for Keycloak's realm roles
+    private final String groupsClaim;
+    private final String[] groupsClaimPath;
+
+    // Verifiers are thread-safe and only depend on the key, so keep them around for as long as the key is in use.
+    // A single verifier handles all algorithms of the family of its key, e.g. RS256 up to PS512 for an RSA key.
+    private final Map<PublicKey, JWSVerifier> verifiers = new ConcurrentHashMap<>();
+    // Like the verifiers; the private key store hands out the same key instance for as long as the key is in use
+    private final Map<PrivateKey, JWEDecrypter> decrypters = new ConcurrentHashMap<>();
+    private final VerifiedTokenCache verifiedTokens;
+
     public enum JwtType {
         SIGNED, ENCRYPTED, INVALID;
 
@@ -87,8 +128,36 @@ public class JwtTokenParser {
     }
 
     public JwtTokenParser(boolean enableNamespacedClaims, String customNamespace, boolean disableTypeVerification) {
+        this(enableNamespacedClaims, customNamespace, disableTypeVerification, 0);
+    }
+
+    /**
+     * @param enableNamespacedClaims whether namespaced claims are kept as-is
+     * @param customNamespace the namespace to strip from claim names
+     * @param disableTypeVerification whether the typ header should not be verified
+     * @param verifiedTokenCacheSize maximum number of tokens for which a successful signature verification is
+     *        remembered until they expire, 0 to always verify the signature
+     */
+    public JwtTokenParser(boolean enableNamespacedClaims, String customNamespace, boolean disableTypeVerification, int verifiedTokenCacheSize) {
+        this(enableNamespacedClaims, customNamespace, disableTypeVerification, verifiedTokenCacheSize, groups);
+    }
+
+    /**
+     * @param enableNamespacedClaims whether namespaced claims are kept as-is
+     * @param customNamespace the namespace to strip from claim names
+     * @param disableTypeVerification whether the typ header should not be verified
+     * @param verifiedTokenCacheSize maximum number of tokens for which a successful signature verification is
+     *        remembered until they expire, 0 to always verify the signature
+     * @param groupsClaim the name of the claim with the groups of the caller; the names of nested claims are
+     *        separated by dots, e.g. <code>realm_access.roles</code>
+     */
+    public JwtTokenParser(boolean enableNamespacedClaims, String customNamespace, boolean disableTypeVerification, int verifiedTokenCacheSize,
+            String groupsClaim) {
         this.enableNamespacedClaims = enableNamespacedClaims;
         this.customNamespace = customNamespace;
+        this.groupsClaim = groupsClaim;
+        this.groupsClaimPath = groupsClaim.split("\\.");
+        this.verifiedTokens = verifiedTokenCacheSize > 0 ? new VerifiedTokenCache(verifiedTokenCacheSize) : null;
     }
 
     public JsonWebTokenImpl parse(String bearerToken, boolean encryptionRequired, PublicKeyStore publicKeyStore, String acceptedIssuer,
@@ -119,17 +188,21 @@ public class JwtTokenParser {
 
         validateSignatureAlgorithm(signedJWT);
 
-        try (JsonReader reader = Json.createReader(new StringReader(signedJWT.getPayload().toString()))) {
-            Map<String, JsonValue> claims = handleNamespacedClaims(new HashMap<>(reader.readObject()));
-            String principal = resolvePrincipal(claims);
+        // Decoded once; all claims other than the registered ones are only parsed when asked for
+        byte[] payload = signedJWT.getPayload().toBytes();
+        RegisteredClaims claims = parseRegisteredClaims(payload);
+        String principal = claims.principal();
 
-            validateClaims(claims, signedJWT, issuer, principal, pubStore.getPublicKey(signedJWT.getHeader().getKeyID()), age, skew);
+        VerificationKey key = pubStore.getVerificationKey(signedJWT.getHeader().getKeyID());
+        validateKeyAlgorithm(signedJWT.getHeader().getAlgorithm(), key);
 
-            // Inject the raw token into the claims map
-            claims.put(raw_token, Json.createValue(rawToken));
+        validateClaims(claims, signedJWT, issuer, principal, key.publicKey(), age, skew);
 
-            return new JsonWebTokenImpl(principal, claims);
-        }
+        return new JsonWebTokenImpl(
+            principal,
+            claims.issuer, claims.expirationTime, claims.issuedAtTime,
+            claims.audience, claims.groups,
+            rawToken, payload, stripsNamespace() ? customNamespace : null);
     }
 
 
@@ -142,7 +215,7 @@ public class JwtTokenParser {
         validateEncryptionHeader(encryptedJWT, alg);
 
         String kid = encryptedJWT.getHeader().getKeyID();
-        encryptedJWT.decrypt(new RSADecrypter(privStore.getPrivateKey(kid)));
+        encryptedJWT.decrypt(getDecrypter(privStore.getPrivateKey(kid), encryptedJWT.getHeader().getAlgorithm()));
 
         SignedJWT nestedSignedJWT = encryptedJWT.getPayload().toSignedJWT();
         if (nestedSignedJWT == null) {
@@ -152,10 +225,10 @@ public class JwtTokenParser {
         return processSignedToken(rawToken, nestedSignedJWT, pubStore, issuer, age, skew);
     }
 
-    private void validateClaims(Map<String, JsonValue> claims, SignedJWT signedJWT, String expectedIssuer, String principal, PublicKey key,
+    private void validateClaims(RegisteredClaims claims, SignedJWT signedJWT, String expectedIssuer, String principal, PublicKey key,
             long maxAge, long skew) {
 
-        if (!claims.keySet().containsAll(REQUIRED_CLAIMS)) {
+        if (claims.issuer == null || claims.expirationTime == null || claims.issuedAtTime == null) {
             throw new IllegalStateException("Missing required MP-JWT claims");
         }
 
@@ -163,13 +236,13 @@ public class JwtTokenParser {
             throw new IllegalStateException("No valid principal found (upn, preferred_username, or sub required)");
         }
 
-        if (!checkIssuer(claims, expectedIssuer)) {
+        if (!claims.issuer.equals(expectedIssuer)) {
             throw new IllegalStateException("Issuer mismatch");
         }
 
         long now = Instant.now().getEpochSecond();
-        long expTime = getLongClaim(claims, exp);
-        long iatTime = getLongClaim(claims, iat);
+        long expTime = claims.expirationTime;
+        long iatTime = claims.issuedAtTime;
 
         if (now - skew > expTime || iatTime > expTime) {
             throw new IllegalStateException("Token has expired");
@@ -179,55 +252,225 @@ public class JwtTokenParser {
             throw new IllegalStateException("Token exceeds maximum allowed age");
         }
 
-        verifySignature(signedJWT, key);
+        verifySignature(signedJWT, key, expTime, now);
     }
 
-    private void verifySignature(SignedJWT signedJWT, PublicKey key) {
-        try {
-            boolean verified = signedJWT.getHeader().getAlgorithm().equals(RS256)
-                    ? signedJWT.verify(new RSASSAVerifier((RSAPublicKey) key))
-                    : signedJWT.verify(new ECDSAVerifier((ECPublicKey) key));
+    private void verifySignature(SignedJWT signedJWT, PublicKey key, long expTime, long now) {
+        String token = verifiedTokens != null ? signedJWT.getParsedString() : null;
+        if (token != null && verifiedTokens.isVerified(token, key, now)) {
+            return;
+        }
 
-            if (!verified) {
+        try {
+            if (!signedJWT.verify(getVerifier(key))) {
                 throw new IllegalStateException("Invalid JWT signature");
             }
         } catch (JOSEException e) {
             throw new IllegalStateException("Cryptographic error during verification", e);
         }
+
+        if (token != null) {
+            verifiedTokens.verified(token, key, expTime, now);
+        }
     }
 
-    private String resolvePrincipal(Map<String, JsonValue> claims) {
-        return Stream.of(upn, preferred_username, sub)
-                     .map(c -> claims.get(c))
-                     .filter(v -> v instanceof JsonString)
-                     .map(v -> ((JsonString) v).getString())
-                     .findFirst()
-                     .orElse(null);
+    private JWSVerifier getVerifier(PublicKey key) throws JOSEException {
+        JWSVerifier verifier = verifiers.get(key);
+        if (verifier != null) {
+            return verifier;
+        }
+
+        if (key instanceof RSAPublicKey rsaPublicKey) {
+            verifier = new RSASSAVerifier(rsaPublicKey);
+        } else if (key instanceof ECPublicKey ecPublicKey) {
+            verifier = new ECDSAVerifier(ecPublicKey);
+        } else if (key instanceof EdECPublicKey edECPublicKey) {
+            verifier = new EdDSAVerifier(edECPublicKey);
+        } else {
+            throw new IllegalStateException("Unsupported public key type: " + key.getAlgorithm());
+        }
+
+        if (verifiers.size() >= MAX_CACHED_VERIFIERS) {
+            // Keys have been rotated many times; drop the verifiers for the old keys
+            verifiers.clear();
+        }
+        verifiers.put(key, verifier);
+
+        return verifier;
     }
 
-    private Map<String, JsonValue> handleNamespacedClaims(Map<String, JsonValue> claims) {
-        if (enableNamespacedClaims || customNamespace == null) {
-            return claims;
+    private JWEDecrypter getDecrypter(PrivateKey key, JWEAlgorithm alg) throws JOSEException {
+        boolean matches =
+            key instanceof RSAPrivateKey ? RSA_ENCRYPTION_ALGORITHMS.contains(alg) :
+            key instanceof ECPrivateKey ? EC_ENCRYPTION_ALGORITHMS.contains(alg) :
+            false;
+
+        if (!matches) {
+            throw new IllegalStateException("Encryption algorithm " + alg + " can not be used with a " + key.getAlgorithm() + " key");
         }
 
-        Map<String, JsonValue> processed = new HashMap<>();
-        claims.forEach((key, value) -> {
-            String newKey = key.startsWith(customNamespace) ? key.substring(customNamespace.length()) : key;
-            processed.put(newKey, value);
-        });
+        JWEDecrypter decrypter = decrypters.get(key);
+        if (decrypter != null) {
+            return decrypter;
+        }
+
+        if (key instanceof RSAPrivateKey) {
+            decrypter = new RSADecrypter(key);
+        } else {
+            decrypter = new ECDHDecrypter((ECPrivateKey) key);
+        }
 
-        return processed;
+        if (decrypters.size() >= MAX_CACHED_DECRYPTERS) {
+            // Keys have been rotated many times; drop the decrypters for the old keys
+            decrypters.clear();
+        }
+        decrypters.put(key, decrypter);
+
+        return decrypter;
+    }
+
+    /**
+     * Reads the claims needed for validation and the principal in a single pass over the payload,
+     * skipping all other claims.
+     */
+    RegisteredClaims parseRegisteredClaims(byte[] payload) {
+        RegisteredClaims claims = new RegisteredClaims();
+
+        try (JsonParser parser = Json.createParser(new ByteArrayInputStream(payload))) {
+            if (!parser.hasNext() || parser.next() != Event.START_OBJECT) {
+                throw new IllegalStateException("JWT payload is not a JSON object");
+            }
+
+            Event event;
+            while ((event = parser.next()) == Event.KEY_NAME) {
+                String name = parser.getString();
+                if (stripsNamespace() && name.startsWith(customNamespace)) {
+                    name = name.substring(customNamespace.length());
+                }
+
+                event = parser.next();
+                if (name.equals(groupsClaimPath[0])) {
+                    claims.groups = readGroups(parser, event, 1);
+                    continue;
+                }
+
+                switch (name) {
+                    case iss -> claims.issuer = readString(parser, event, name);
+                    case exp -> claims.expirationTime = readLong(parser, event, name);
+                    case iat -> claims.issuedAtTime = readLong(parser, event, name);
+                    case aud -> claims.audience = readStringSet(parser, event, name);
+                    case upn -> claims.upn = readOptionalString(parser, event);
+                    case preferred_username -> claims.preferredUsername = readOptionalString(parser, event);
+                    case sub -> claims.subject = readOptionalString(parser, event);
+                    default -> skip(parser, event);
+                }
+            }
+
+            if (event != Event.END_OBJECT) {
+                throw new IllegalStateException("JWT payload is not a JSON object");
+            }
+        } catch (JsonException | NoSuchElementException e) {
+            throw new IllegalStateException("JWT payload is not valid JSON", e);
+        }
+
+        return claims;
+    }
+
+    private static String readString(JsonParser parser, Event event, String name) {
+        if (event != Event.VALUE_STRING) {
+            throw new IllegalStateException("Claim " + name + " is not a string");
+        }
+
+        return parser.getString();
+    }
+
+    private static String readOptionalString(JsonParser parser, Event event) {
+        if (event != Event.VALUE_STRING) {
+            // Only string values can identify the caller; try the next candidate claim
+            skip(parser, event);
+            return null;
+        }
+
+        return parser.getString();
+    }
+
+    private static Long readLong(JsonParser parser, Event event, String name) {
+        if (event != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("Claim " + name + " is not a number");
+        }
+
+        return parser.getLong();
+    }
+
+    private static Set<String> readStringSet(JsonParser parser, Event event, String name) {
+        if (event == Event.VALUE_STRING) {
+            return Set.of(parser.getString());
+        }
+
+        if (event != Event.START_ARRAY) {
+            throw new IllegalStateException("Claim " + name + " is not a string or an array of strings");
+        }
+
+        Set<String> values = new HashSet<>();
+        while ((event = parser.next()) != Event.END_ARRAY) {
+            values.add(readString(parser, event, name));
+        }
+
+        return values;
+    }
+
+    /**
+     * Reads the groups claim, descending into the objects on its path.
+     *
+     * @param depth the number of names on the path that have been matched already
+     * @return the groups, or null if the token doesn't have the claim
+     */
+    private Set<String> readGroups(JsonParser parser, Event event, int depth) {
+        if (depth == groupsClaimPath.length) {
+            return readStringSet(parser, event, groupsClaim);
+        }
+
+        if (event != Event.START_OBJECT) {
+            skip(parser, event);
+            return null;
+        }
+
+        Set<String> nestedGroups = null;
+        while ((event = parser.next()) == Event.KEY_NAME) {
+            String name = parser.getString();
+            event = parser.next();
+
+            if (name.equals(groupsClaimPath[depth])) {
+                nestedGroups = readGroups(parser, event, depth + 1);
+            } else {
+                skip(parser, event);
+            }
+        }
+
+        return nestedGroups;
+    }
+
+    private static void skip(JsonParser parser, Event event) {
+        if (event == Event.START_OBJECT) {
+            parser.skipObject();
+        } else if (event == Event.START_ARRAY) {
+            parser.skipArray();
+        }
+    }
+
+    private boolean stripsNamespace() {
+        return !enableNamespacedClaims && customNamespace != null;
     }
 
-    @SuppressWarnings("deprecation")
     private void validateEncryptionHeader(EncryptedJWT jwt, String requiredAlg) {
         String cty = jwt.getHeader().getContentType();
         if (!"JWT".equals(cty)) {
             throw new IllegalStateException("No 'cty' header is set for encrypyted JWE");
         }
 
-        String alg = jwt.getHeader().getAlgorithm().getName();
-        if (!List.of(RSA_OAEP.getName(), RSA_OAEP_256.getName()).contains(alg)) {
+        JWEAlgorithm algorithm = jwt.getHeader().getAlgorithm();
+        String alg = algorithm.getName();
+        if (!RSA_ENCRYPTION_ALGORITHMS.contains(algorithm) && !EC_ENCRYPTION_ALGORITHMS.contains(algorithm)) {
             throw new IllegalStateException("Unsupported encryption algorithm: " + alg);
         }
 
@@ -243,18 +486,59 @@ public class JwtTokenParser {
         }
 
         JWSAlgorithm alg = jwt.getHeader().getAlgorithm();
-        if (!alg.equals(RS256) && !alg.equals(ES256)) {
+        if (!RSA_ALGORITHMS.contains(alg) && !EC_ALGORITHMS.contains(alg) && !alg.equals(EdDSA)) {
             throw new IllegalStateException("Unsupported signing algorithm: " + alg);
         }
     }
 
-    private boolean checkIssuer(Map<String, JsonValue> claims, String expected) {
-        return
-            claims.get(iss) instanceof JsonString issClaimString &&
-            issClaimString.getString().equals(expected);
+    /**
+     * Checks that the algorithm of the token fits the key, so that a token can't pick an algorithm the
+     * issuer never used with that key.
+     */
+    private void validateKeyAlgorithm(JWSAlgorithm alg, VerificationKey key) {
+        if (key.algorithm() != null && !key.algorithm().equals(alg.getName())) {
+            throw new IllegalStateException("Signing algorithm " + alg + " does not match algorithm " + key.algorithm() + " of the key");
+        }
+
+        PublicKey publicKey = key.publicKey();
+
+        boolean matches;
+        if (publicKey instanceof RSAPublicKey) {
+            matches = RSA_ALGORITHMS.contains(alg);
+        } else if (publicKey instanceof ECPublicKey ecPublicKey) {
+            matches = alg.equals(switch (ecPublicKey.getParams().getCurve().getField().getFieldSize()) {
+                case 256 -> ES256;
+                case 384 -> ES384;
+                case 521 -> ES512;
+                default -> null;
+            });
+        } else if (publicKey instanceof EdECPublicKey) {
+            matches = alg.equals(EdDSA);
+        } else {
+            matches = false;
+        }
+
+        if (!matches) {
+            throw new IllegalStateException("Signing algorithm " + alg + " can not be used with a " + publicKey.getAlgorithm() + " key");
+        }
     }
 
-    private long getLongClaim(Map<String, JsonValue> claims, String claim) {
-        return ((JsonNumber) claims.get(claim)).longValue();
+    static final class RegisteredClaims {
+        String issuer;
+        Long expirationTime;
+        Long issuedAtTime;
+        Set<String> audience;
+        Set<String> groups;
+        String upn;
+        String preferredUsername;
+        String subject;
+
+        String principal() {
+            if (upn != null) {
+                return upn;
+            }
+
+            return preferredUsername != null ? preferredUsername : subject;
+        }
     }
 }
\ No newline at end of file
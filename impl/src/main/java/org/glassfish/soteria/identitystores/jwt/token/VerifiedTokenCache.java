@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.jwt.token;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Duration;
+
+import org.glassfish.soteria.utils.ExpiringCache;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Remembers the digests of tokens whose signature has been verified, so that repeated
+ * presentations of the same token don't have to redo the signature verification.
+ *
+ * <p>
+ * An entry is only honoured for the exact key instance the signature was verified with, so
+ * entries become unusable as soon as the public keys are reloaded. Entries are kept until the
+ * <code>exp</code> claim of their token has passed. The cache is bounded; when it is full, the
+ * least recently used token is forgotten.
+ */
+final class VerifiedTokenCache {
+
+    private final ExpiringCache<ByteBuffer, Entry> entries;
+
+    VerifiedTokenCache(int maxSize) {
+        this.entries = new ExpiringCache<>(maxSize);
+    }
+
+    boolean isVerified(String token, PublicKey key, long nowEpochSecond) {
+        Entry entry = entries.get(digest(token));
+        if (entry == null) {
+            return false;
+        }
+
+        return entry.key() == key && nowEpochSecond <= entry.expiresAtEpochSecond();
+    }
+
+    void verified(String token, PublicKey key, long expiresAtEpochSecond, long nowEpochSecond) {
+        // Up to and including the second of the exp claim
+        Duration timeToLive = Duration.ofSeconds(expiresAtEpochSecond - nowEpochSecond + 1);
+
+        entries.put(digest(token), new Entry(key, expiresAtEpochSecond), timeToLive);
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(PublicKey key, long expiresAtEpochSecond) {
+    }
+}
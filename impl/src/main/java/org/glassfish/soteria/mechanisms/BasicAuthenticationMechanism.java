@@ -33,7 +33,7 @@ import jakarta.security.enterprise.identitystore.IdentityStoreHandler;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.glassfish.soteria.cdi.CdiUtils;
+import org.glassfish.soteria.cdi.BeanReference;
 
 
 /**
@@ -45,6 +45,7 @@ import org.glassfish.soteria.cdi.CdiUtils;
 public class BasicAuthenticationMechanism implements HttpAuthenticationMechanism {
     
     private final BasicAuthenticationMechanismDefinition basicAuthenticationMechanismDefinition;
+    private final BeanReference<IdentityStoreHandler> identityStoreHandlerReference = new BeanReference<>(IdentityStoreHandler.class);
 
     // CDI requires a no-arg constructor to be portable
     // It's only used to create the proxy
@@ -62,7 +63,7 @@ public class BasicAuthenticationMechanism implements HttpAuthenticationMechanism
 		String[] credentials = getCredentials(request);
 		if (!isEmpty(credentials)) {
 
-            IdentityStoreHandler identityStoreHandler = CdiUtils.getBeanReference(IdentityStoreHandler.class);
+            IdentityStoreHandler identityStoreHandler = identityStoreHandlerReference.get();
 
             CredentialValidationResult result = identityStoreHandler.validate(
                     new UsernamePasswordCredential(credentials[0], new Password(credentials[1])));
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.mechanisms;
+
+/**
+ * Finds a bearer token in an <code>Authorization</code> or <code>Cookie</code> header without
+ * creating any objects other than the token itself.
+ */
+final class BearerTokenScanner {
+
+    private static final String BEARER = "Bearer";
+
+    private BearerTokenScanner() {}
+
+    /**
+     * Reads the token of the <code>Bearer</code> scheme, as defined in RFC 6750, section 2.1. The
+     * scheme name is matched case-insensitively.
+     *
+     * @param header the value of the Authorization header, may be null
+     * @return the token, or null if the header doesn't hold a bearer token
+     */
+    static String fromAuthorizationHeader(String header) {
+        if (header == null || header.length() <= BEARER.length() ||
+                !header.regionMatches(true, 0, BEARER, 0, BEARER.length()) ||
+                header.charAt(BEARER.length()) != ' ') {
+            return null;
+        }
+
+        int start = skipWhitespace(header, BEARER.length(), header.length());
+        int end = trimWhitespace(header, start, header.length());
+
+        return start < end ? header.substring(start, end) : null;
+    }
+
+    /**
+     * Reads the value of a cookie from a Cookie header. Both the RFC 6265 format (<code>a=1; b=2</code>)
+     * and the RFC 2965 format (<code>$Version=1; a=1; $Path=/, b=2</code>) are understood, and a
+     * quoted value is unquoted. When the cookie is present more than once, the first non-empty
+     * value is returned, which is the one with the most specific path.
+     *
+     * @param header the value of the Cookie header, may be null
+     * @param name the name of the cookie
+     * @return the value of the cookie, or null if the header doesn't hold a non-empty value for it
+     */
+    static String fromCookieHeader(String header, String name) {
+        if (header == null || name == null || name.isEmpty()) {
+            return null;
+        }
+
+        int length = header.length();
+        int position = 0;
+
+        while (position < length) {
+            int nameStart = skipWhitespace(header, position, length);
+            int pairEnd = nextSeparator(header, nameStart, length);
+
+            if (pairEnd - nameStart > name.length() && header.startsWith(name, nameStart)) {
+                int equals = skipWhitespace(header, nameStart + name.length(), pairEnd);
+
+                if (equals < pairEnd && header.charAt(equals) == '=') {
+                    int valueStart = skipWhitespace(header, equals + 1, pairEnd);
+                    int valueEnd = trimWhitespace(header, valueStart, pairEnd);
+
+                    if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+                        valueStart++;
+                        valueEnd--;
+                    }
+
+                    if (valueStart < valueEnd) {
+                        return header.substring(valueStart, valueEnd);
+                    }
+                }
+            }
+
+            position = pairEnd + 1;
+        }
+
+        return null;
+    }
+
+    private static int nextSeparator(String header, int from, int to) {
+        // Cookie values can't hold either separator, quoted or not (RFC 6265, section 4.1.1)
+        for (int i = from; i < to; i++) {
+            char c = header.charAt(i);
+            if (c == ';' || c == ',') {
+                return i;
+            }
+        }
+
+        return to;
+    }
+
+    private static int skipWhitespace(String header, int from, int to) {
+        while (from < to && isWhitespace(header.charAt(from))) {
+            from++;
+        }
+
+        return from;
+    }
+
+    private static int trimWhitespace(String header, int from, int to) {
+        while (to > from && isWhitespace(header.charAt(to - 1))) {
+            to--;
+        }
+
+        return to;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+}
@@ -27,7 +27,7 @@ import jakarta.security.enterprise.identitystore.IdentityStoreHandler;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.glassfish.soteria.cdi.CdiUtils;
+import org.glassfish.soteria.cdi.BeanReference;
 
 /**
  * Authentication mechanism that authenticates according to the Servlet spec defined FORM
@@ -42,13 +42,14 @@ import org.glassfish.soteria.cdi.CdiUtils;
 public class CustomFormAuthenticationMechanism implements HttpAuthenticationMechanism, LoginToContinueHolder {
 	
     private LoginToContinue loginToContinue;
+    private final BeanReference<IdentityStoreHandler> identityStoreHandlerReference = new BeanReference<>(IdentityStoreHandler.class);
     
 	@Override
 	public AuthenticationStatus validateRequest(HttpServletRequest request, HttpServletResponse response, HttpMessageContext httpMessageContext) throws AuthenticationException {
         
         if (hasCredential(httpMessageContext)) {
 
-            IdentityStoreHandler identityStoreHandler = CdiUtils.getBeanReference(IdentityStoreHandler.class);
+            IdentityStoreHandler identityStoreHandler = identityStoreHandlerReference.get();
             
             return httpMessageContext.notifyContainerAboutLogin(
                     identityStoreHandler.validate(
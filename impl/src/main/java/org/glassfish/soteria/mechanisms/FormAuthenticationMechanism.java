@@ -29,7 +29,7 @@ import jakarta.security.enterprise.identitystore.IdentityStoreHandler;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import org.glassfish.soteria.cdi.CdiUtils;
+import org.glassfish.soteria.cdi.BeanReference;
 
 import static org.glassfish.soteria.utils.Utils.notNull;
 
@@ -46,13 +46,14 @@ import static org.glassfish.soteria.utils.Utils.notNull;
 public class FormAuthenticationMechanism implements HttpAuthenticationMechanism, LoginToContinueHolder {
 	
     private LoginToContinue loginToContinue;
+    private final BeanReference<IdentityStoreHandler> identityStoreHandlerReference = new BeanReference<>(IdentityStoreHandler.class);
     
 	@Override
 	public AuthenticationStatus validateRequest(HttpServletRequest request, HttpServletResponse response, HttpMessageContext httpMessageContext) throws AuthenticationException {
 		
 	    if (isValidFormPostback(request)) {
 
-            IdentityStoreHandler identityStoreHandler = CdiUtils.getBeanReference(IdentityStoreHandler.class);
+            IdentityStoreHandler identityStoreHandler = identityStoreHandlerReference.get();
 	        
             return httpMessageContext.notifyContainerAboutLogin(
                     identityStoreHandler.validate(
@@ -15,7 +15,6 @@
  */
 package org.glassfish.soteria.mechanisms;
 
-import jakarta.enterprise.inject.spi.CDI;
 import jakarta.security.enterprise.AuthenticationException;
 import jakarta.security.enterprise.AuthenticationStatus;
 import jakarta.security.enterprise.authentication.mechanism.http.HttpAuthenticationMechanism;
@@ -26,9 +25,10 @@ import jakarta.security.enterprise.identitystore.IdentityStoreHandler;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
-import java.util.Optional;
+import java.util.Enumeration;
 
 import org.glassfish.soteria.TokenCredential;
+import org.glassfish.soteria.cdi.BeanReference;
 import org.glassfish.soteria.identitystores.jwt.JWTConfiguration;
 
 import static jakarta.security.enterprise.identitystore.CredentialValidationResult.Status.VALID;
@@ -45,6 +45,10 @@ public class JWTAuthenticationMechanism implements HttpAuthenticationMechanism {
 
     private final boolean useHeader;
     private final String configJwtTokenCookie;
+    private final BeanReference<IdentityStoreHandler> identityStoreHandler = new BeanReference<>(IdentityStoreHandler.class);
+
+    // The realm only depends on the context path, which is fixed for the application
+    private volatile String wwwAuthenticate;
 
     public JWTAuthenticationMechanism(JWTConfiguration jwtConfiguration) {
         this.useHeader = CONFIG_TOKEN_HEADER_AUTHORIZATION.equals(jwtConfiguration.configJwtTokenHeader());
@@ -56,18 +60,14 @@ public class JWTAuthenticationMechanism implements HttpAuthenticationMechanism {
         TokenCredential credential = getCredential(request);
         if (credential == null) {
             if (httpMessageContext.isProtected()) {
-                response.setHeader("WWW-Authenticate", format("Bearer realm=\"%s\"", getRealmName(httpMessageContext)));
+                response.setHeader("WWW-Authenticate", getWwwAuthenticate(httpMessageContext));
                 return httpMessageContext.responseUnauthorized();
             }
 
             return httpMessageContext.doNothing();
         }
 
-        CredentialValidationResult result =
-            CDI.current()
-               .select(IdentityStoreHandler.class)
-               .get()
-               .validate(credential);
+        CredentialValidationResult result = identityStoreHandler.get().validate(credential);
 
         if (result.getStatus() != VALID) {
             return httpMessageContext.responseUnauthorized();
@@ -81,31 +81,28 @@ public class JWTAuthenticationMechanism implements HttpAuthenticationMechanism {
     }
 
     private TokenCredential getCredential(HttpServletRequest request) {
-        Optional<String> token = Optional.empty();
+        String token = null;
         if (useHeader) {
-            String authorizationHeader = request.getHeader("Authorization");
-            if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-                token = Optional.of(authorizationHeader.substring("Bearer ".length()));
-            }
+            token = BearerTokenScanner.fromAuthorizationHeader(request.getHeader("Authorization"));
         } else {
-            // use Cookie header
-            String bearerMark = ";" + configJwtTokenCookie + "=";
-            String cookieHeader = request.getHeader("Cookie");
-            if (cookieHeader != null && cookieHeader.startsWith("$Version=") && cookieHeader.contains(bearerMark)) {
-                token = Optional.of(cookieHeader.substring(cookieHeader.indexOf(bearerMark) + bearerMark.length()));
+            // use Cookie header, which HTTP/2 clients may split into several headers
+            Enumeration<String> cookieHeaders = request.getHeaders("Cookie");
+            while (token == null && cookieHeaders != null && cookieHeaders.hasMoreElements()) {
+                token = BearerTokenScanner.fromCookieHeader(cookieHeaders.nextElement(), configJwtTokenCookie);
             }
         }
 
-        return token.map(t -> createSignedJWTCredential(t))
-                    .orElse(null);
+        return token != null ? new TokenCredential(token) : null;
     }
 
-    private TokenCredential createSignedJWTCredential(String token) {
-        if (token != null && !token.isEmpty()) {
-            return new TokenCredential(token);
+    private String getWwwAuthenticate(HttpMessageContext httpMessageContext) {
+        String header = wwwAuthenticate;
+        if (header == null) {
+            header = format("Bearer realm=\"%s\"", getRealmName(httpMessageContext));
+            wwwAuthenticate = header;
         }
 
-        return null;
+        return header;
     }
 
     private String getRealmName(HttpMessageContext httpMessageContext) {
@@ -32,19 +32,28 @@ import static jakarta.security.enterprise.authentication.mechanism.http.openid.O
 import static jakarta.security.enterprise.authentication.mechanism.http.openid.OpenIdConstant.TOKEN_TYPE;
 import static jakarta.security.enterprise.identitystore.CredentialValidationResult.INVALID_RESULT;
 import static jakarta.security.enterprise.identitystore.CredentialValidationResult.NOT_VALIDATED_RESULT;
+import static jakarta.ws.rs.core.Response.Status.BAD_REQUEST;
 import static jakarta.ws.rs.core.Response.Status.OK;
 import static java.util.Objects.isNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.Objects.nonNull;
 import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.INFO;
 import static java.util.logging.Level.WARNING;
+import static org.glassfish.soteria.utils.ExecutorServices.newThreadPerTaskExecutor;
 import static org.glassfish.soteria.utils.Utils.isEmpty;
 import static org.glassfish.soteria.utils.Utils.isOneOf;
 
 import java.io.IOException;
-import java.io.Serializable;
 import java.io.StringReader;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 
 import javax.security.auth.callback.Callback;
@@ -56,6 +65,8 @@ import org.glassfish.soteria.mechanisms.openid.controller.AuthenticationControll
 import org.glassfish.soteria.mechanisms.openid.controller.StateController;
 import org.glassfish.soteria.mechanisms.openid.controller.TokenController;
 import org.glassfish.soteria.mechanisms.openid.controller.TokenController.TokensResponse;
+import org.glassfish.soteria.mechanisms.openid.domain.AccessTokenImpl;
+import org.glassfish.soteria.mechanisms.openid.domain.IdentityTokenImpl;
 import org.glassfish.soteria.mechanisms.openid.domain.LogoutConfiguration;
 import org.glassfish.soteria.mechanisms.openid.domain.OpenIdConfiguration;
 import org.glassfish.soteria.mechanisms.openid.domain.OpenIdContextImpl;
@@ -63,8 +74,10 @@ import org.glassfish.soteria.mechanisms.openid.domain.RefreshTokenImpl;
 import org.glassfish.soteria.servlet.HttpServletRequestDelegator;
 import org.glassfish.soteria.servlet.HttpStorageController;
 import org.glassfish.soteria.servlet.RequestData;
+import org.glassfish.soteria.utils.SystemProperties;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Instance;
 import jakarta.enterprise.inject.Typed;
@@ -78,6 +91,8 @@ import jakarta.security.enterprise.authentication.mechanism.http.HttpAuthenticat
 import jakarta.security.enterprise.authentication.mechanism.http.HttpMessageContext;
 import jakarta.security.enterprise.identitystore.CredentialValidationResult;
 import jakarta.security.enterprise.identitystore.IdentityStoreHandler;
+import jakarta.security.enterprise.identitystore.openid.AccessToken;
+import jakarta.security.enterprise.identitystore.openid.IdentityToken;
 import jakarta.security.enterprise.identitystore.openid.RefreshToken;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -90,6 +105,12 @@ import jakarta.ws.rs.core.UriBuilder;
  * <br/>
  * Specification Implemented :
  * http://openid.net/specs/openid-connect-core-1_0.html
+ * <p>
+ * When <code>org.glassfish.soteria.openid.proactiveRefresh</code> is set to true, tokens that are about to
+ * expire are refreshed in the background, while requests keep using the current tokens. The refreshed tokens
+ * are taken into use by the first request after the refresh finished. Tokens are about to expire during the
+ * number of seconds set by <code>org.glassfish.soteria.openid.proactiveRefresh.window</code> before they
+ * would be refreshed otherwise, by default the last fifth of their lifetime.
  *
  * @author Gaurav Gupta
  * @author Rudy De Busscher
@@ -127,7 +148,11 @@ public class OpenIdAuthenticationMechanism implements HttpAuthenticationMechanis
     private static final Logger LOGGER = Logger.getLogger(OpenIdAuthenticationMechanism.class.getName());
 
     public static final String ORIGINAL_REQUEST_DATA_JSON = "org.glassfish.soteria.original.request.json";
-    private static final String SESSION_LOCK_NAME = OpenIdAuthenticationMechanism.class.getName();
+    private static final String PENDING_REFRESH_NAME = OpenIdAuthenticationMechanism.class.getName() + ".pendingRefresh";
+    private static final long DEFAULT_REFRESH_WINDOW = 60_000;
+
+    // The error of a token response for a refresh token that is invalid, expired or revoked (RFC 6749, section 5.2)
+    private static final String INVALID_GRANT = "invalid_grant";
 
     @Inject
     private OpenIdConfiguration configuration;
@@ -149,13 +174,22 @@ public class OpenIdAuthenticationMechanism implements HttpAuthenticationMechanis
     @Inject
     Instance<IdentityStoreHandler> storeHandlerInstance;
 
-    private static class Lock implements Serializable {
-        private static final long serialVersionUID = 1L;
-    }
-
+    private boolean proactiveRefresh;
+    private Duration proactiveRefreshWindow;
+    private ExecutorService refreshExecutor;
+    private Duration refreshTimeout;
+    private Duration refreshRetryInterval;
 
     @PostConstruct
     void init() {
+        proactiveRefresh = SystemProperties.getBoolean("openid.proactiveRefresh", false);
+        proactiveRefreshWindow = SystemProperties.getSeconds("openid.proactiveRefresh.window", Duration.ZERO);
+        refreshTimeout = SystemProperties.getSeconds("openid.refreshTimeout", Duration.ofSeconds(30));
+        refreshRetryInterval = SystemProperties.getSeconds("openid.proactiveRefresh.retryInterval", Duration.ofSeconds(30));
+        if (proactiveRefresh) {
+            refreshExecutor = newThreadPerTaskExecutor("soteria-openid-refresh");
+        }
+
         if (storeHandlerInstance.isResolvable()) {
             identityStoreHandler = storeHandlerInstance.get();
             return;
@@ -165,6 +199,13 @@ public class OpenIdAuthenticationMechanism implements HttpAuthenticationMechanis
                 "@Inject IdentityStoreHandler is unsatisfied.");
     }
 
+    @PreDestroy
+    void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
     @Override
     public AuthenticationStatus validateRequest(HttpServletRequest request, HttpServletResponse response, HttpMessageContext httpContext) throws AuthenticationException {
         if (isNull(request.getUserPrincipal())) {
@@ -204,6 +245,13 @@ public class OpenIdAuthenticationMechanism implements HttpAuthenticationMechanis
             return this.reAuthenticate(httpContext);
         }
 
+        if (proactiveRefresh && configuration.isTokenAutoRefresh()) {
+            AuthenticationStatus refreshStatus = refreshInBackground(httpContext);
+            if (refreshStatus != null) {
+                return refreshStatus;
+            }
+        }
+
         // 2. Check for logging out
         LogoutConfiguration logout = configuration.getLogoutConfiguration();
         if (logout.isIdentityTokenExpiry()) {
@@ -371,6 +419,11 @@ public class OpenIdAuthenticationMechanism implements HttpAuthenticationMechanis
             // Register session manually (if @AutoApplySession used, this would be done by its interceptor)
             httpContext.setRegisterSession(validationResult.getCallerPrincipal().getName(), validationResult.getCallerGroups());
 
+            if (configuration.isTokenAutoRefresh()) {
+                // Created while no other request of the session can race for it
+                getPendingRefresh(request);
+            }
+
             if (configuration.isRedirectToOriginalResource()) {
                 // Restore request manually (if @LoginToContinue used, this would be done by its interceptor)
                 httpContext.withRequest(new HttpServletRequestDelegator(request, getRequestData(request, response)));
@@ -390,10 +443,25 @@ public class OpenIdAuthenticationMechanism implements HttpAuthenticationMechanis
 
     }
 
+    /**
+     * Refreshes the tokens once for all requests of the session. The first request refreshes them; the
+     * others continue when the tokens are still valid, and otherwise wait for the first one.
+     */
     private AuthenticationStatus reAuthenticate(HttpMessageContext httpContext) throws AuthenticationException {
         HttpServletRequest request = httpContext.getRequest();
         HttpServletResponse response = httpContext.getResponse();
-        synchronized (getSessionLock(httpContext.getRequest())) {
+        PendingRefresh<TokensResponse> pendingRefresh = getPendingRefresh(request);
+
+        CompletableFuture<AuthenticationStatus> reAuthentication = new CompletableFuture<>();
+        CompletableFuture<AuthenticationStatus> otherReAuthentication = pendingRefresh.startReAuthentication(reAuthentication);
+        if (otherReAuthentication != null) {
+            return awaitReAuthentication(otherReAuthentication);
+        }
+
+        try {
+            AuthenticationStatus refreshStatus = SUCCESS;
+
+            // Another request may have refreshed the tokens just now
             boolean accessTokenExpired = context.getAccessToken().isExpired();
             boolean identityTokenExpired = context.getIdentityToken().isExpired();
             if (accessTokenExpired || identityTokenExpired) {
@@ -405,23 +473,158 @@ public class OpenIdAuthenticationMechanism implements HttpAuthenticationMechanis
                     LOGGER.fine("Identity Token is expired. Request new Identity Token with Refresh Token.");
                 }
 
-                AuthenticationStatus refreshStatus = context.getRefreshToken()
-                        .map(rt -> this.refreshTokens(httpContext, rt))
+                refreshStatus = context.getRefreshToken()
+                        .map(rt -> this.refreshTokens(httpContext, rt, pendingRefresh))
                         .orElse(SEND_FAILURE);
 
                 if (refreshStatus != SUCCESS) {
                     LOGGER.log(FINE, "Failed to refresh token (Refresh Token might be invalid).");
                     logout(request, response);
                 }
-                return refreshStatus;
             }
+
+            reAuthentication.complete(refreshStatus);
+            return refreshStatus;
+        } catch (RuntimeException | Error e) {
+            reAuthentication.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingRefresh.finishReAuthentication(reAuthentication);
         }
+    }
 
-        return SUCCESS;
+    private AuthenticationStatus awaitReAuthentication(CompletableFuture<AuthenticationStatus> reAuthentication) {
+        if (!isExpired(0)) {
+            // Only about to expire; good enough for this request
+            return SUCCESS;
+        }
+
+        try {
+            return reAuthentication.get(refreshTimeout.toMillis(), MILLISECONDS) == SUCCESS ? SUCCESS : SEND_FAILURE;
+        } catch (TimeoutException e) {
+            LOGGER.log(FINE, "Timed out waiting for the tokens to be refreshed by another request.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | CancellationException e) {
+            LOGGER.log(FINE, "Failed to refresh token in another request.", e);
+        }
+
+        return SEND_FAILURE;
+    }
+
+    /**
+     * Takes the tokens of a finished background refresh into use, or starts a background refresh
+     * when the tokens are about to expire.
+     *
+     * @return the status after taking refreshed tokens into use, or null to continue with the current tokens
+     */
+    private AuthenticationStatus refreshInBackground(HttpMessageContext httpContext) {
+        PendingRefresh<TokensResponse> pendingRefresh = getPendingRefresh(httpContext.getRequest());
+
+        CompletableFuture<TokensResponse> finishedRefresh = pendingRefresh.takeBackgroundRefresh(true);
+        if (finishedRefresh != null) {
+            TokensResponse response;
+            try {
+                response = finishedRefresh.join();
+            } catch (CompletionException | CancellationException e) {
+                LOGGER.log(FINE, "Failed to refresh token in the background, trying again later.", e);
+                pendingRefresh.retryAfter(refreshRetryInterval);
+                return null;
+            }
+
+            if (response.getStatus() != OK.getStatusCode()) {
+                // The tokens are still valid; a rejected refresh token is tried again once they expire
+                if (isInvalidGrant(response)) {
+                    LOGGER.log(FINE, "Refresh Token rejected in background refresh, refreshing once the tokens expire.");
+                    pendingRefresh.rejected();
+                } else {
+                    LOGGER.log(FINE, "Background refresh failed with status {0}, trying again later.", response.getStatus());
+                    pendingRefresh.retryAfter(refreshRetryInterval);
+                }
+                return null;
+            }
+
+            pendingRefresh.succeeded();
+            AuthenticationStatus refreshStatus = applyRefreshedTokens(httpContext, response);
+            if (refreshStatus != SUCCESS) {
+                LOGGER.log(FINE, "Failed to validate tokens of background refresh.");
+                logout(httpContext.getRequest(), httpContext.getResponse());
+            }
+            return refreshStatus;
+        }
+
+        if (isAboutToExpire()) {
+            context.getRefreshToken().ifPresent(refreshToken ->
+                pendingRefresh.startInBackground(
+                    refreshToken.getToken(),
+                    () -> tokenController.refreshTokensAsync(refreshToken, refreshExecutor)));
+        }
+
+        return null;
+    }
+
+    private boolean isAboutToExpire() {
+        return isExpired(configuration.getTokenMinValidity() + getRefreshWindow());
+    }
+
+    /**
+     * @param minValidity the number of milliseconds the tokens must at least be valid
+     * @return whether the tokens expire within the given time; for tokens of an unknown type whether they
+     *         are expired according to the configured minimum validity
+     */
+    private boolean isExpired(long minValidity) {
+        AccessToken accessToken = context.getAccessToken();
+        IdentityToken identityToken = context.getIdentityToken();
+
+        return (accessToken instanceof AccessTokenImpl accessTokenImpl ? accessTokenImpl.isExpired(minValidity) : accessToken.isExpired()) ||
+               (identityToken instanceof IdentityTokenImpl identityTokenImpl ? identityTokenImpl.isExpired(minValidity) : identityToken.isExpired());
+    }
+
+    private long getRefreshWindow() {
+        if (!proactiveRefreshWindow.isZero()) {
+            return proactiveRefreshWindow.toMillis();
+        }
+
+        // The last fifth of the lifetime of the tokens
+        return context.getExpiresIn()
+                      .map(expiresIn -> expiresIn * 1000 / 5)
+                      .orElse(DEFAULT_REFRESH_WINDOW);
+    }
+
+    private static boolean isInvalidGrant(TokensResponse response) {
+        return response.getStatus() == BAD_REQUEST.getStatusCode() &&
+               response.getTokensObject() != null &&
+               INVALID_GRANT.equals(response.getTokensObject().getString(ERROR_PARAM, null));
+    }
+
+    private AuthenticationStatus refreshTokens(HttpMessageContext httpContext, RefreshToken refreshToken, PendingRefresh<TokensResponse> pendingRefresh) {
+        TokensResponse response = null;
+
+        // A background refresh that is still running has been sent with the same refresh token
+        CompletableFuture<TokensResponse> backgroundRefresh = pendingRefresh.takeBackgroundRefresh(false);
+        if (backgroundRefresh != null) {
+            try {
+                response = backgroundRefresh.get(refreshTimeout.toMillis(), MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return SEND_FAILURE;
+            } catch (ExecutionException | CancellationException | TimeoutException e) {
+                LOGGER.log(FINE, "Failed to refresh token in the background, refreshing now.", e);
+            }
+        }
+
+        if (response == null || response.getStatus() != OK.getStatusCode()) {
+            response = tokenController.refreshTokens(refreshToken);
+        }
+
+        if (response.getStatus() == OK.getStatusCode()) {
+            pendingRefresh.succeeded();
+        }
+
+        return applyRefreshedTokens(httpContext, response);
     }
 
-    private AuthenticationStatus refreshTokens(HttpMessageContext httpContext, RefreshToken refreshToken) {
-        TokensResponse response = tokenController.refreshTokens(refreshToken);
+    private AuthenticationStatus applyRefreshedTokens(HttpMessageContext httpContext, TokensResponse response) {
         JsonObject tokensObject = response.getTokensObject();
 
         if (response.getStatus() == OK.getStatusCode()) {
@@ -504,21 +707,17 @@ public class OpenIdAuthenticationMechanism implements HttpAuthenticationMechanis
         }
     }
 
-    private Object getSessionLock(HttpServletRequest request) {
+    @SuppressWarnings("unchecked")
+    private PendingRefresh<TokensResponse> getPendingRefresh(HttpServletRequest request) {
         HttpSession session = request.getSession();
-        Object lock = session.getAttribute(SESSION_LOCK_NAME);
-        if (isNull(lock)) {
-            synchronized (OpenIdAuthenticationMechanism.class) {
-                lock = session.getAttribute(SESSION_LOCK_NAME);
-                if (isNull(lock)) {
-                    lock = new Lock();
-                    session.setAttribute(SESSION_LOCK_NAME, lock);
-                }
-
-            }
+        PendingRefresh<TokensResponse> pendingRefresh = (PendingRefresh<TokensResponse>) session.getAttribute(PENDING_REFRESH_NAME);
+        if (isNull(pendingRefresh)) {
+            // Normally created at login; concurrent requests of older sessions may briefly each use their own
+            session.setAttribute(PENDING_REFRESH_NAME, new PendingRefresh<TokensResponse>());
+            pendingRefresh = (PendingRefresh<TokensResponse>) session.getAttribute(PENDING_REFRESH_NAME);
         }
 
-        return lock;
+        return pendingRefresh;
     }
 
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.mechanisms;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import jakarta.security.enterprise.AuthenticationStatus;
+
+/**
+ * The refresh of the tokens of a session, shared by all requests of the session. It isn't replicated
+ * with the session; a refresh that is running when the session moves is not taken into use.
+ *
+ * <p>
+ * The methods only swap the pending refreshes; no lock is held while waiting for the provider.
+ *
+ * @param <T> the type of the response to a background refresh
+ */
+class PendingRefresh<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient CompletableFuture<AuthenticationStatus> reAuthentication;
+
+    private transient CompletableFuture<T> backgroundRefresh;
+    private transient String refreshToken;
+    private transient String rejectedRefreshToken;
+    private transient long retryAfterMillis;
+
+    /**
+     * @param reAuthentication the re-authentication of the calling request
+     * @return the re-authentication of another request that is already running, or null if the given
+     *         one is now the running re-authentication
+     */
+    synchronized CompletableFuture<AuthenticationStatus> startReAuthentication(CompletableFuture<AuthenticationStatus> reAuthentication) {
+        if (this.reAuthentication != null) {
+            return this.reAuthentication;
+        }
+
+        this.reAuthentication = reAuthentication;
+        return null;
+    }
+
+    synchronized void finishReAuthentication(CompletableFuture<AuthenticationStatus> reAuthentication) {
+        if (this.reAuthentication == reAuthentication) {
+            this.reAuthentication = null;
+        }
+    }
+
+    /**
+     * Starts a background refresh, unless one is running, the refresh token has been rejected before, or
+     * the last background refresh failed too recently.
+     */
+    synchronized void startInBackground(String refreshToken, Supplier<CompletableFuture<T>> refresher) {
+        if (backgroundRefresh == null && !refreshToken.equals(rejectedRefreshToken) && System.currentTimeMillis() >= retryAfterMillis) {
+            this.backgroundRefresh = refresher.get();
+            this.refreshToken = refreshToken;
+        }
+    }
+
+    /**
+     * @param onlyIfDone whether to only take a background refresh that has finished
+     * @return the background refresh, for only one caller; null if there's none
+     */
+    synchronized CompletableFuture<T> takeBackgroundRefresh(boolean onlyIfDone) {
+        CompletableFuture<T> refresh = backgroundRefresh;
+        if (refresh == null || (onlyIfDone && !refresh.isDone())) {
+            return null;
+        }
+
+        backgroundRefresh = null;
+        return refresh;
+    }
+
+    /**
+     * The provider rejected the refresh token of the last background refresh; it's not sent in the
+     * background again.
+     */
+    synchronized void rejected() {
+        rejectedRefreshToken = refreshToken;
+    }
+
+    /**
+     * The last background refresh failed for another reason, such as the provider not being reachable;
+     * no background refresh is started until the given time has passed.
+     */
+    synchronized void retryAfter(Duration interval) {
+        retryAfterMillis = System.currentTimeMillis() + interval.toMillis();
+    }
+
+    /**
+     * The tokens were refreshed, so earlier failures no longer matter.
+     */
+    synchronized void succeeded() {
+        rejectedRefreshToken = null;
+        retryAfterMillis = 0;
+    }
+}
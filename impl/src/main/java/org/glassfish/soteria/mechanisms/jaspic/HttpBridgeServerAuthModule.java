@@ -38,7 +38,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.util.Map;
 import javax.security.auth.Subject;
 import javax.security.auth.callback.CallbackHandler;
-import org.glassfish.soteria.cdi.CdiUtils;
+import org.glassfish.soteria.cdi.BeanReference;
 import org.glassfish.soteria.cdi.spi.CDIPerRequestInitializer;
 import org.glassfish.soteria.mechanisms.HttpMessageContextImpl;
 
@@ -52,6 +52,8 @@ public class HttpBridgeServerAuthModule implements ServerAuthModule {
         private CallbackHandler handler;
         private final Class<?>[] supportedMessageTypes = new Class[] { HttpServletRequest.class, HttpServletResponse.class };
         private final CDIPerRequestInitializer cdiPerRequestInitializer;
+        private final BeanReference<HttpAuthenticationMechanismHandler> mechanismHandler =
+            new BeanReference<>(HttpAuthenticationMechanismHandler.class, Default.Literal.INSTANCE);
 
         public HttpBridgeServerAuthModule(CDIPerRequestInitializer cdiPerRequestInitializer) {
             this.cdiPerRequestInitializer = cdiPerRequestInitializer;
@@ -84,7 +86,7 @@ public class HttpBridgeServerAuthModule implements ServerAuthModule {
             setLastAuthenticationStatus(msgContext.getRequest(), status);
 
             try {
-                status = CdiUtils.getBeanReference(HttpAuthenticationMechanismHandler.class, Default.Literal.INSTANCE)
+                status = mechanismHandler.get()
                             .validateRequest(
                                 msgContext.getRequest(),
                                 msgContext.getResponse(),
@@ -107,7 +109,7 @@ public class HttpBridgeServerAuthModule implements ServerAuthModule {
             HttpMessageContext msgContext = new HttpMessageContextImpl(handler, messageInfo, null);
 
             try {
-                AuthenticationStatus status = CdiUtils.getBeanReference(HttpAuthenticationMechanismHandler.class)
+                AuthenticationStatus status = mechanismHandler.get()
                                                  .secureResponse(
                                                      msgContext.getRequest(),
                                                      msgContext.getResponse(),
@@ -135,7 +137,7 @@ public class HttpBridgeServerAuthModule implements ServerAuthModule {
         public void cleanSubject(MessageInfo messageInfo, Subject subject) throws AuthException {
             HttpMessageContext msgContext = new HttpMessageContextImpl(handler, messageInfo, subject);
 
-            CdiUtils.getBeanReference(HttpAuthenticationMechanismHandler.class)
+            mechanismHandler.get()
                .cleanSubject(msgContext.getRequest(), msgContext.getResponse(), msgContext);
         }
 
@@ -18,15 +18,18 @@
 package org.glassfish.soteria.mechanisms.openid.controller;
 
 import java.util.Arrays;
-import java.util.Objects;
 
+/**
+ * A key made of several attributes. Attributes that are arrays, like a client secret, are compared by
+ * their content.
+ */
 class CacheKey {
     private final Object[] attributes;
     private final int hashCode;
 
     CacheKey(Object... attributes) {
         this.attributes = attributes;
-        this.hashCode = Objects.hash(attributes);
+        this.hashCode = Arrays.deepHashCode(attributes);
     }
 
     @Override
@@ -43,6 +46,6 @@ class CacheKey {
             return false;
         }
         CacheKey that = (CacheKey) o;
-        return hashCode == that.hashCode && Arrays.equals(attributes, that.attributes);
+        return hashCode == that.hashCode && Arrays.deepEquals(attributes, that.attributes);
     }
 }
@@ -73,15 +73,15 @@ public class ConfigurationController implements Serializable {
     @RequestScoped
     public OpenIdConfiguration produceConfiguration(OpenIdAuthenticationMechanismDefinition definition) {
         if (lastBuiltConfig == null) {
-            lastBuiltConfig = new LastBuiltConfig(null, null);
+            lastBuiltConfig = new LastBuiltConfig(null, null, null);
         }
-        OpenIdConfiguration cached = lastBuiltConfig.cachedConfiguration(definition);
+        OpenIdConfiguration cached = lastBuiltConfig.cachedConfiguration(definition, providerMetadataController);
         if (cached != null) {
             return cached;
         }
 
         OpenIdConfiguration config = buildConfig(definition);
-        lastBuiltConfig = new LastBuiltConfig(definition, config);
+        lastBuiltConfig = new LastBuiltConfig(definition, evalImmediate(definition.providerURI()), config);
 
         return config;
     }
@@ -378,15 +378,19 @@ public class ConfigurationController implements Serializable {
 
     static class LastBuiltConfig {
         private final OpenIdAuthenticationMechanismDefinition definition;
+        private final String providerURI;
         private final OpenIdConfiguration configuration;
 
-        public LastBuiltConfig(OpenIdAuthenticationMechanismDefinition definition, OpenIdConfiguration configuration) {
+        public LastBuiltConfig(OpenIdAuthenticationMechanismDefinition definition, String providerURI, OpenIdConfiguration configuration) {
             this.definition = definition;
+            this.providerURI = providerURI;
             this.configuration = configuration;
         }
 
-        OpenIdConfiguration cachedConfiguration(OpenIdAuthenticationMechanismDefinition definition) {
-            if (this.definition != null && this.definition.equals(definition)) {
+        OpenIdConfiguration cachedConfiguration(OpenIdAuthenticationMechanismDefinition definition, ProviderMetadataController providerMetadataController) {
+            // The configuration is rebuilt once the provider's document has been refreshed
+            if (this.definition != null && this.definition.equals(definition) &&
+                providerMetadataController.getDocument(providerURI) == configuration.getProviderMetadata().getDocument()) {
                 return configuration;
             }
             return null;
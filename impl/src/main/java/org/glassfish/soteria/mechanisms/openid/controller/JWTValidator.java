@@ -43,9 +43,11 @@ import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
 import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import com.nimbusds.jwt.proc.JWTClaimsSetVerifier;
+import com.nimbusds.jwt.proc.JWTProcessor;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.security.enterprise.authentication.mechanism.http.openid.OpenIdConstant;
+import java.net.URL;
 import java.text.ParseException;
 import java.util.concurrent.ConcurrentHashMap;
 import org.glassfish.soteria.mechanisms.openid.domain.OpenIdConfiguration;
@@ -55,7 +57,8 @@ public class JWTValidator {
     @Inject
     private OpenIdConfiguration configuration;
 
-    private ConcurrentHashMap<CacheKey, JWSKeySelector<?>> jwsCache = new ConcurrentHashMap<>();
+    // Configured processors are thread safe; the claims are verified separately for every token
+    private final ConcurrentHashMap<CacheKey, JWTProcessor<?>> processorCache = new ConcurrentHashMap<>();
 
 
     public JWTClaimsSet validateBearerToken(JWT token, JWTClaimsSetVerifier jwtVerifier) {
@@ -74,10 +77,8 @@ public class JWTValidator {
                     alg = OpenIdConstant.DEFAULT_JWT_SIGNED_ALGORITHM;
                 }
 
-                ConfigurableJWTProcessor jwtProcessor = new DefaultJWTProcessor();
-                jwtProcessor.setJWSKeySelector(getJWSKeySelector(alg));
-                jwtProcessor.setJWTClaimsSetVerifier(jwtVerifier);
-                claimsSet = jwtProcessor.process(signedToken, null);
+                claimsSet = getJWTProcessor(alg).process(signedToken, null);
+                jwtVerifier.verify(claimsSet, null);
             } else if (token instanceof EncryptedJWT) {
                 /*
                  * If ID Token is encrypted, decrypt it using the keys and
@@ -87,12 +88,9 @@ public class JWTValidator {
                 JWEHeader header = encryptedToken.getHeader();
                 String alg = header.getAlgorithm().getName();
 
-                ConfigurableJWTProcessor jwtProcessor = new DefaultJWTProcessor();
-                jwtProcessor.setJWSKeySelector(getJWSKeySelector(alg));
-
                 // Only JWS supported, not JWE
-                jwtProcessor.setJWTClaimsSetVerifier(jwtVerifier);
-                claimsSet = jwtProcessor.process(encryptedToken, null);
+                claimsSet = getJWTProcessor(alg).process(encryptedToken, null);
+                jwtVerifier.verify(claimsSet, null);
             } else {
                 throw new IllegalStateException("Unexpected JWT type : " + token.getClass());
             }
@@ -104,25 +102,42 @@ public class JWTValidator {
     }
 
     /**
-     * JWSKeySelector finds the JSON Web Key Set (JWKS) from jwks_uri endpoint
-     * and filter for potential signing keys in the JWKS with a matching kid
-     * property.
-     *
      * @param alg the algorithm for the key
-     * @return the JSON Web Signing (JWS) key selector
+     * @return the processor that verifies the signature of tokens signed with the given algorithm, without
+     *         verifying their claims
      */
-    private JWSKeySelector<?> getJWSKeySelector(String alg) {
-        return jwsCache.computeIfAbsent(createCacheKey(alg), k -> createJWSKeySelector(alg));
+    private JWTProcessor<?> getJWTProcessor(String alg) {
+        return processorCache.computeIfAbsent(createCacheKey(alg), k -> createJWTProcessor(alg));
     }
 
     private CacheKey createCacheKey(String alg) {
+        URL jwksURL = configuration.getProviderMetadata().getJwksURL();
+
+        // URL.equals() would resolve the host name
         return new CacheKey(alg,
                 configuration.getJwksConnectTimeout(),
                 configuration.getJwksReadTimeout(),
-                configuration.getProviderMetadata().getJwksURL(),
+                jwksURL != null ? jwksURL.toExternalForm() : null,
                 configuration.getClientSecret());
     }
 
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private JWTProcessor<?> createJWTProcessor(String alg) {
+        ConfigurableJWTProcessor jwtProcessor = new DefaultJWTProcessor();
+        jwtProcessor.setJWSKeySelector(createJWSKeySelector(alg));
+        jwtProcessor.setJWTClaimsSetVerifier(null);
+
+        return jwtProcessor;
+    }
+
+    /**
+     * JWSKeySelector finds the JSON Web Key Set (JWKS) from jwks_uri endpoint
+     * and filter for potential signing keys in the JWKS with a matching kid
+     * property.
+     *
+     * @param alg the algorithm for the key
+     * @return the JSON Web Signing (JWS) key selector
+     */
     private JWSKeySelector<?> createJWSKeySelector(String alg) {
         JWKSource<?> jwkSource;
         JWSAlgorithm jWSAlgorithm = new JWSAlgorithm(alg);
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.mechanisms.openid.controller;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.glassfish.soteria.utils.SystemProperties;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * The HTTP client through which all requests to OpenId Connect Providers are sent.
+ *
+ * <p>
+ * A single client is shared by all controllers and all OpenId definitions of the application. It keeps
+ * connections to each provider open between requests, so that token, userinfo and metadata requests
+ * don't pay for a new TCP connection and TLS handshake each time, and uses HTTP/2 where the provider
+ * supports it.
+ *
+ * <p>
+ * The timeouts are read from the following system properties:
+ * <ul>
+ * <li><code>org.glassfish.soteria.openid.connectTimeout</code> - seconds to wait for a connection, default 10.
+ * <li><code>org.glassfish.soteria.openid.readTimeout</code> - seconds to wait for a response, default 30.
+ * </ul>
+ */
+@ApplicationScoped
+public class OpenIdHttpClient {
+
+    private HttpClient httpClient;
+    private Duration readTimeout;
+
+    @PostConstruct
+    public void init() {
+        this.httpClient = HttpClient.newBuilder()
+                                    .version(Version.HTTP_2)
+                                    .followRedirects(Redirect.NORMAL)
+                                    .connectTimeout(SystemProperties.getSeconds("openid.connectTimeout", Duration.ofSeconds(10)))
+                                    .build();
+        this.readTimeout = SystemProperties.getSeconds("openid.readTimeout", Duration.ofSeconds(30));
+    }
+
+    /**
+     * Sends a GET request.
+     *
+     * @param uri the URI to get
+     * @param accept the accepted media type
+     * @param authorization the value of the Authorization header, or null to send none
+     * @return the response, with the body as string
+     */
+    public HttpResponse<String> get(String uri, String accept, String authorization) {
+        HttpRequest.Builder request = newRequest(uri, accept).GET();
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+
+        return send(request.build());
+    }
+
+    /**
+     * Sends a POST request with form parameters.
+     *
+     * @param uri the URI to post to
+     * @param accept the accepted media type
+     * @param form the form parameters, sent in iteration order
+     * @return the response, with the body as string
+     */
+    public HttpResponse<String> postForm(String uri, String accept, Map<String, String> form) {
+        StringJoiner body = new StringJoiner("&");
+        form.forEach((name, value) -> body.add(encode(name) + "=" + encode(value)));
+
+        return send(newRequest(uri, accept)
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(BodyPublishers.ofString(body.toString()))
+                        .build());
+    }
+
+    private HttpRequest.Builder newRequest(String uri, String accept) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                          .timeout(readTimeout)
+                          .header("Accept", accept);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return httpClient.send(request, BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new IllegalStateException("Request to " + request.uri() + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + request.uri(), e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value != null ? value : "", UTF_8);
+    }
+
+}
@@ -18,35 +18,97 @@
 package org.glassfish.soteria.mechanisms.openid.controller;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
-import static java.util.Objects.isNull;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.logging.Level.WARNING;
+import static org.glassfish.soteria.utils.ExecutorServices.newThreadPerTaskExecutor;
+import static org.glassfish.soteria.utils.ExecutorServices.withContextClassLoader;
 import static org.glassfish.soteria.utils.Utils.isEmpty;
 
 import java.io.StringReader;
-import java.util.HashMap;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Logger;
 
+import org.glassfish.soteria.utils.SystemProperties;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.json.Json;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonReader;
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
-import jakarta.ws.rs.client.WebTarget;
-import jakarta.ws.rs.core.Response;
-import jakarta.ws.rs.core.Response.Status;
+import jakarta.json.JsonValue;
 
 /**
  * Manages the OpenId Connect Provider metadata
  *
+ * <p>
+ * Documents are kept for as long as the <code>max-age</code> of the <code>Cache-Control</code> header
+ * of the provider's response allows, bounded by the following system properties:
+ * <ul>
+ * <li><code>org.glassfish.soteria.openid.providerMetadata.minTtl</code> - minimum number of seconds to
+ * keep a document, also when the provider forbids caching, default 60.
+ * <li><code>org.glassfish.soteria.openid.providerMetadata.maxTtl</code> - maximum number of seconds to
+ * keep a document, and the time used when the provider doesn't send a <code>max-age</code>,
+ * default 86400.
+ * </ul>
+ *
+ * <p>
+ * Only the first request for a provider waits for its document; concurrent first requests share a
+ * single fetch. An expired document is refreshed in the background while it keeps being served, and
+ * is served until the next attempt when the refresh fails.
+ *
  * @author Gaurav Gupta
  * @author Rudy De Busscher
  */
 @ApplicationScoped
 public class ProviderMetadataController {
 
+    private static final Logger LOGGER = Logger.getLogger(ProviderMetadataController.class.getName());
+
     private static final String WELL_KNOWN_PREFIX = "/.well-known/openid-configuration";
+    private static final String MAX_AGE = "max-age=";
+
+    private final Map<String, CachedDocument> providerDocuments = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CachedDocument>> pendingLoads = new ConcurrentHashMap<>();
 
-    private final Map<String, JsonObject> providerDocuments = new HashMap<>();
+    @Inject
+    private OpenIdHttpClient httpClient;
+
+    private Duration minTimeToLive;
+    private Duration maxTimeToLive;
+    private ExecutorService executor;
+
+    public ProviderMetadataController() {
+    }
+
+    ProviderMetadataController(OpenIdHttpClient httpClient, Duration minTimeToLive, Duration maxTimeToLive, ExecutorService executor) {
+        this.httpClient = httpClient;
+        this.minTimeToLive = minTimeToLive;
+        this.maxTimeToLive = maxTimeToLive;
+        this.executor = executor;
+    }
+
+    @PostConstruct
+    public void init() {
+        minTimeToLive = SystemProperties.getSeconds("openid.providerMetadata.minTtl", Duration.ofSeconds(60));
+        maxTimeToLive = SystemProperties.getSeconds("openid.providerMetadata.maxTtl", Duration.ofDays(1));
+        executor = newThreadPerTaskExecutor("soteria-openid-metadata");
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
 
     /**
      * Request to the provider
@@ -57,49 +119,154 @@ public class ProviderMetadataController {
      * information (jwks_uri)
      *
      * @param providerURI the OpenID Provider's uri
-     * @return the OpenID Provider's configuration information / document
+     * @return the OpenID Provider's configuration information / document; the same instance until
+     * the document has been refreshed
      *
      */
     public JsonObject getDocument(String providerURI) {
-        if (isNull(providerDocuments.get(providerURI))) {
-            if (isEmpty(providerURI)) {
-                // Empty providerURI so all data needs to be defined within OpenIdProviderMetadata structure
-                providerDocuments.put(providerURI, Json.createObjectBuilder().build());
-            } else {
-                if (providerURI.endsWith("/")) {
-                    providerURI = providerURI.substring(0, providerURI.length() - 1);
-                }
+        if (isEmpty(providerURI)) {
+            // Empty providerURI so all data needs to be defined within OpenIdProviderMetadata structure
+            return JsonValue.EMPTY_JSON_OBJECT;
+        }
 
-                // Append WELL_KNOWN_PREFIX to the URL
-                if (!providerURI.endsWith(WELL_KNOWN_PREFIX)) {
-                    providerURI = providerURI + WELL_KNOWN_PREFIX;
-                }
+        String documentURI = getDocumentURI(providerURI);
+
+        CachedDocument cachedDocument = providerDocuments.get(documentURI);
+        if (cachedDocument == null) {
+            return join(load(documentURI, false)).document();
+        }
+
+        if (cachedDocument.isExpired()) {
+            load(documentURI, true);
+        }
+
+        return cachedDocument.document();
+    }
+
+    private static String getDocumentURI(String providerURI) {
+        String documentURI = providerURI;
+        if (documentURI.endsWith("/")) {
+            documentURI = documentURI.substring(0, documentURI.length() - 1);
+        }
+
+        // Append WELL_KNOWN_PREFIX to the URL
+        if (!documentURI.endsWith(WELL_KNOWN_PREFIX)) {
+            documentURI = documentURI + WELL_KNOWN_PREFIX;
+        }
+
+        return documentURI;
+    }
+
+    /**
+     * Fetches the document, unless it's already being fetched.
+     *
+     * @return the pending document, shared by all callers until it has been fetched
+     */
+    private CompletableFuture<CachedDocument> load(String documentURI, boolean inBackground) {
+        CompletableFuture<CachedDocument> pendingLoad = new CompletableFuture<>();
+        CompletableFuture<CachedDocument> otherPendingLoad = pendingLoads.putIfAbsent(documentURI, pendingLoad);
+        if (otherPendingLoad != null) {
+            return otherPendingLoad;
+        }
 
-                // Call
-                try (Client client = ClientBuilder.newClient()) {
-                    WebTarget target = client.target(providerURI);
-                    try (Response response = target.request()
-                        .accept(APPLICATION_JSON)
-                        .get()) {
-
-                        if (response.getStatus() == Status.OK.getStatusCode()) {
-                            // Get back the result of the REST request
-                            String responseBody = response.readEntity(String.class);
-                            try (JsonReader reader = Json.createReader(new StringReader(responseBody))) {
-                                JsonObject responseObject = reader.readObject();
-                                providerDocuments.put(providerURI, responseObject);
-                            }
-                        } else {
-                            throw new IllegalStateException(String.format(
-                                    "Unable to retrieve OpenID Provider's [%s] configuration document, HTTP respons code : [%s] ",
-                                    providerURI, response.getStatus()));
-                        }
+        if (inBackground) {
+            supplyAsync(withContextClassLoader(() -> fetchDocument(documentURI)), executor)
+                .whenComplete((document, failure) -> loaded(documentURI, pendingLoad, document, failure));
+        } else {
+            try {
+                loaded(documentURI, pendingLoad, fetchDocument(documentURI), null);
+            } catch (RuntimeException e) {
+                loaded(documentURI, pendingLoad, null, e);
+            }
+        }
+
+        return pendingLoad;
+    }
+
+    private void loaded(String documentURI, CompletableFuture<CachedDocument> pendingLoad, CachedDocument document, Throwable failure) {
+        if (failure == null) {
+            providerDocuments.put(documentURI, document);
+            pendingLoad.complete(document);
+        } else {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+
+            CachedDocument staleDocument = providerDocuments.get(documentURI);
+            if (staleDocument != null) {
+                // Keep serving what we have, and don't ask the provider again before the minimum time has passed
+                LOGGER.log(WARNING, "Unable to refresh OpenID Provider's [" + documentURI + "] configuration document, keeping the previous one", cause);
+                providerDocuments.put(documentURI, new CachedDocument(staleDocument.document(), Instant.now().plus(minTimeToLive)));
+            }
+
+            pendingLoad.completeExceptionally(cause);
+        }
+
+        pendingLoads.remove(documentURI, pendingLoad);
+    }
+
+    private CachedDocument fetchDocument(String documentURI) {
+        HttpResponse<String> response = httpClient.get(documentURI, APPLICATION_JSON, null);
+
+        if (response.statusCode() != HTTP_OK) {
+            throw new IllegalStateException(String.format(
+                    "Unable to retrieve OpenID Provider's [%s] configuration document, HTTP respons code : [%s] ",
+                    documentURI, response.statusCode()));
+        }
+
+        // Get back the result of the REST request
+        try (JsonReader reader = Json.createReader(new StringReader(response.body()))) {
+            return new CachedDocument(reader.readObject(), Instant.now().plus(getTimeToLive(response)));
+        }
+    }
+
+    /**
+     * @return the max-age of the response, bounded by the configured minimum and maximum
+     */
+    Duration getTimeToLive(HttpResponse<String> response) {
+        Duration timeToLive = maxTimeToLive;
+
+        for (String cacheControl : response.headers().allValues("Cache-Control")) {
+            for (String directive : cacheControl.split(",")) {
+                directive = directive.trim().toLowerCase(Locale.ROOT);
+
+                if (directive.equals("no-cache") || directive.equals("no-store")) {
+                    timeToLive = Duration.ZERO;
+                } else if (directive.startsWith(MAX_AGE) && timeToLive.compareTo(Duration.ZERO) > 0) {
+                    try {
+                        timeToLive = Duration.ofSeconds(Long.parseLong(directive.substring(MAX_AGE.length()).replace("\"", "")));
+                    } catch (NumberFormatException e) {
+                        // Ignore an invalid max-age, as if it was not sent
                     }
                 }
             }
         }
 
-        return providerDocuments.get(providerURI);
+        if (timeToLive.compareTo(minTimeToLive) < 0) {
+            return minTimeToLive;
+        }
+        if (timeToLive.compareTo(maxTimeToLive) > 0) {
+            return maxTimeToLive;
+        }
+
+        return timeToLive;
+    }
+
+    private static <T> T join(CompletableFuture<T> pendingLoad) {
+        try {
+            return pendingLoad.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw e;
+        }
+    }
+
+    private record CachedDocument(JsonObject document, Instant expiresAt) {
+
+        boolean isExpired() {
+            return Instant.now().isAfter(expiresAt);
+        }
     }
 
 }
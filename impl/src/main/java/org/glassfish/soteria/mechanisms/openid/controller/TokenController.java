@@ -19,9 +19,15 @@ package org.glassfish.soteria.mechanisms.openid.controller;
 
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
 import static java.util.Collections.emptyMap;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static org.glassfish.soteria.utils.ExecutorServices.withContextClassLoader;
 
 import java.io.StringReader;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.glassfish.soteria.mechanisms.openid.domain.AccessTokenImpl;
 import org.glassfish.soteria.mechanisms.openid.domain.IdentityTokenImpl;
@@ -42,12 +48,6 @@ import jakarta.security.enterprise.identitystore.openid.IdentityToken;
 import jakarta.security.enterprise.identitystore.openid.RefreshToken;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
-import jakarta.ws.rs.client.Entity;
-import jakarta.ws.rs.client.WebTarget;
-import jakarta.ws.rs.core.Form;
-import jakarta.ws.rs.core.Response;
 
 /**
  * Controller for Token endpoint
@@ -67,6 +67,9 @@ public class TokenController {
     @Inject
     private JWTValidator validator;
 
+    @Inject
+    private OpenIdHttpClient httpClient;
+
     /**
      * (4) A Client makes a token request to the token endpoint and the OpenId
      * Provider responds with an ID Token and an Access Token.
@@ -90,25 +93,15 @@ public class TokenController {
          * 3. Ensure that the redirect_uri parameter value is identical to the
          * initial authorization request's redirect_uri parameter value.
          */
-        Form form = new Form()
-                .param(OpenIdConstant.CLIENT_ID, configuration.getClientId())
-                .param(OpenIdConstant.CLIENT_SECRET, new String(configuration.getClientSecret()))
-                .param(OpenIdConstant.GRANT_TYPE, OpenIdConstant.AUTHORIZATION_CODE)
-                .param(OpenIdConstant.CODE, authorizationCode)
-                .param(OpenIdConstant.REDIRECT_URI, configuration.buildRedirectURI(request));
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put(OpenIdConstant.CLIENT_ID, configuration.getClientId());
+        form.put(OpenIdConstant.CLIENT_SECRET, new String(configuration.getClientSecret()));
+        form.put(OpenIdConstant.GRANT_TYPE, OpenIdConstant.AUTHORIZATION_CODE);
+        form.put(OpenIdConstant.CODE, authorizationCode);
+        form.put(OpenIdConstant.REDIRECT_URI, configuration.buildRedirectURI(request));
 
         //  ID Token and Access Token Request
-        try (Client client = ClientBuilder.newClient()) {
-            WebTarget target = client.target(configuration.getProviderMetadata().getTokenEndpoint());
-            try (Response response =  target.request()
-                .accept(APPLICATION_JSON)
-                .post(Entity.form(form))) {
-
-                JsonObject tokensObject = readJsonObject(response.readEntity(String.class));
-
-                return new TokensResponse(response.getStatus(), tokensObject);
-            }
-        }
+        return requestTokens(configuration.getProviderMetadata().getTokenEndpoint(), form);
     }
 
     /**
@@ -189,25 +182,45 @@ public class TokenController {
      * representation of the OpenID Connect token response from the Token endpoint.
      */
     public TokensResponse refreshTokens(RefreshToken refreshToken) {
-        Form form = new Form()
-                .param(OpenIdConstant.CLIENT_ID, configuration.getClientId())
-                .param(OpenIdConstant.CLIENT_SECRET, new String(configuration.getClientSecret()))
-                .param(OpenIdConstant.GRANT_TYPE, OpenIdConstant.REFRESH_TOKEN)
-                .param(OpenIdConstant.REFRESH_TOKEN, refreshToken.getToken());
-
         // Access Token and RefreshToken Request
-        try (Client client = ClientBuilder.newClient()) {
-        WebTarget target = client.target(configuration.getProviderMetadata().getTokenEndpoint());
-            try (Response response =  target.request()
-                .accept(APPLICATION_JSON)
-                .post(Entity.form(form))) {
+        return requestTokens(configuration.getProviderMetadata().getTokenEndpoint(), getRefreshForm(refreshToken));
+    }
 
-                JsonObject tokensObject = readJsonObject(response.readEntity(String.class));
+    /**
+     * Makes a refresh request to the token endpoint like {@link #refreshTokens(RefreshToken)}, but
+     * waits for the response on the given executor.
+     *
+     * <p>
+     * The request is built on the calling thread, so the executor doesn't need access to the request
+     * scope.
+     *
+     * @param refreshToken Refresh Token received from previous token request.
+     * @param executor the executor that sends the request
+     * @return the pending {@code TokenResponse}
+     */
+    public CompletableFuture<TokensResponse> refreshTokensAsync(RefreshToken refreshToken, Executor executor) {
+        String tokenEndpoint = configuration.getProviderMetadata().getTokenEndpoint();
+        Map<String, String> form = getRefreshForm(refreshToken);
 
-                return new TokensResponse(response.getStatus(), tokensObject);
+        return supplyAsync(withContextClassLoader(() -> requestTokens(tokenEndpoint, form)), executor);
+    }
 
-            }
-        }
+    private Map<String, String> getRefreshForm(RefreshToken refreshToken) {
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put(OpenIdConstant.CLIENT_ID, configuration.getClientId());
+        form.put(OpenIdConstant.CLIENT_SECRET, new String(configuration.getClientSecret()));
+        form.put(OpenIdConstant.GRANT_TYPE, OpenIdConstant.REFRESH_TOKEN);
+        form.put(OpenIdConstant.REFRESH_TOKEN, refreshToken.getToken());
+
+        return form;
+    }
+
+    private TokensResponse requestTokens(String tokenEndpoint, Map<String, String> form) {
+        HttpResponse<String> response = httpClient.postForm(tokenEndpoint, APPLICATION_JSON, form);
+
+        JsonObject tokensObject = readJsonObject(response.body());
+
+        return new TokensResponse(response.statusCode(), tokensObject);
     }
 
     private JsonObject readJsonObject(String tokensBody) {
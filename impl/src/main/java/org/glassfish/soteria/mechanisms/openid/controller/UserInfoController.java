@@ -22,10 +22,12 @@ import static jakarta.security.enterprise.authentication.mechanism.http.openid.O
 import static jakarta.security.enterprise.authentication.mechanism.http.openid.OpenIdConstant.SUBJECT_IDENTIFIER;
 import static jakarta.ws.rs.core.HttpHeaders.CONTENT_TYPE;
 import static jakarta.ws.rs.core.MediaType.APPLICATION_JSON;
+import static java.net.HttpURLConnection.HTTP_OK;
 import static java.util.Objects.nonNull;
 import static java.util.logging.Level.WARNING;
 
 import java.io.StringReader;
+import java.net.http.HttpResponse;
 import java.util.logging.Logger;
 
 import org.glassfish.soteria.mechanisms.openid.domain.OpenIdConfiguration;
@@ -38,11 +40,6 @@ import jakarta.json.JsonReader;
 import jakarta.security.enterprise.authentication.mechanism.http.openid.OpenIdConstant;
 import jakarta.security.enterprise.identitystore.openid.AccessToken;
 import jakarta.security.enterprise.identitystore.openid.OpenIdContext;
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
-import jakarta.ws.rs.client.WebTarget;
-import jakarta.ws.rs.core.Response;
-import jakarta.ws.rs.core.Response.Status;
 
 /**
  * Controller for Token endpoint
@@ -56,8 +53,10 @@ public class UserInfoController {
     @Inject
     private OpenIdContext context;
 
+    @Inject
+    private OpenIdHttpClient httpClient;
+
     private static final String APPLICATION_JWT = "application/jwt";
-    private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_TYPE = "Bearer ";
 
     private static final Logger LOGGER = Logger.getLogger(UserInfoController.class.getName());
@@ -74,39 +73,35 @@ public class UserInfoController {
         LOGGER.finest("Sending the request to the userinfo endpoint");
         JsonObject userInfo;
 
-        try (Client client = ClientBuilder.newClient()) {
-            WebTarget target = client.target(configuration.getProviderMetadata().getUserinfoEndpoint());
-            try (Response response = target.request()
-                .accept(APPLICATION_JSON)
-                .header(AUTHORIZATION_HEADER, BEARER_TYPE + accessToken)
-                // 5.5.  Requesting Claims using the "claims" Request Parameter ??
-                .get()) {
-
-                String responseBody = response.readEntity(String.class);
-
-                String contentType = response.getHeaderString(CONTENT_TYPE);
-                if (response.getStatus() == Status.OK.getStatusCode()) {
-                    if (nonNull(contentType) && contentType.contains(APPLICATION_JSON)) {
-                        // Successful UserInfo Response
-                        try (JsonReader reader = Json.createReader(new StringReader(responseBody))) {
-                            userInfo = reader.readObject();
-                        }
-                    } else if (nonNull(contentType) && contentType.contains(APPLICATION_JWT)) {
-                        throw new UnsupportedOperationException("application/jwt content-type not supported for userinfo endpoint");
-                        //If the UserInfo Response is signed and/or encrypted, then the Claims are returned in a JWT and the content-type MUST be application/jwt. The response MAY be encrypted without also being signed. If both signing and encryption are requested, the response MUST be signed then encrypted, with the result being a Nested JWT, ??
-                        //If signed, the UserInfo Response SHOULD contain the Claims iss (issuer) and aud (audience) as members. The iss value SHOULD be the OP's Issuer Identifier URL. The aud value SHOULD be or include the RP's Client ID value.
-                    } else {
-                        throw new IllegalStateException("Invalid response received from userinfo endpoint with content-type : " + contentType);
-                    }
-                } else {
-                    // UserInfo Error Response
-                    JsonObject responseObject = Json.createReader(new StringReader(responseBody)).readObject();
-                    String error = responseObject.getString(OpenIdConstant.ERROR_PARAM, "Unknown Error");
-                    String errorDescription = responseObject.getString(ERROR_DESCRIPTION_PARAM, "Unknown");
-                    LOGGER.log(WARNING, "Error occurred in fetching user info: {0} caused by {1}", new Object[]{error, errorDescription});
-                    throw new IllegalStateException("Error occurred in fetching user info");
+        // 5.5.  Requesting Claims using the "claims" Request Parameter ??
+        HttpResponse<String> response = httpClient.get(
+            configuration.getProviderMetadata().getUserinfoEndpoint(),
+            APPLICATION_JSON,
+            BEARER_TYPE + accessToken);
+
+        String responseBody = response.body();
+
+        String contentType = response.headers().firstValue(CONTENT_TYPE).orElse(null);
+        if (response.statusCode() == HTTP_OK) {
+            if (nonNull(contentType) && contentType.contains(APPLICATION_JSON)) {
+                // Successful UserInfo Response
+                try (JsonReader reader = Json.createReader(new StringReader(responseBody))) {
+                    userInfo = reader.readObject();
                 }
+            } else if (nonNull(contentType) && contentType.contains(APPLICATION_JWT)) {
+                throw new UnsupportedOperationException("application/jwt content-type not supported for userinfo endpoint");
+                //If the UserInfo Response is signed and/or encrypted, then the Claims are returned in a JWT and the content-type MUST be application/jwt. The response MAY be encrypted without also being signed. If both signing and encryption are requested, the response MUST be signed then encrypted, with the result being a Nested JWT, ??
+                //If signed, the UserInfo Response SHOULD contain the Claims iss (issuer) and aud (audience) as members. The iss value SHOULD be the OP's Issuer Identifier URL. The aud value SHOULD be or include the RP's Client ID value.
+            } else {
+                throw new IllegalStateException("Invalid response received from userinfo endpoint with content-type : " + contentType);
             }
+        } else {
+            // UserInfo Error Response
+            JsonObject responseObject = Json.createReader(new StringReader(responseBody)).readObject();
+            String error = responseObject.getString(OpenIdConstant.ERROR_PARAM, "Unknown Error");
+            String errorDescription = responseObject.getString(ERROR_DESCRIPTION_PARAM, "Unknown");
+            LOGGER.log(WARNING, "Error occurred in fetching user info: {0} caused by {1}", new Object[]{error, errorDescription});
+            throw new IllegalStateException("Error occurred in fetching user info");
         }
 
         validateUserInfoClaims(userInfo);
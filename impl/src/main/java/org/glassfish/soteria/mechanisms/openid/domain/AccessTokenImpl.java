@@ -75,12 +75,20 @@ public class AccessTokenImpl implements AccessToken {
     
     @Override
     public boolean isExpired() {
+        return isExpired(tokenMinValidity);
+    }
+
+    /**
+     * @param minValidity the number of milliseconds the token must at least be valid
+     * @return whether the token expires within the given time
+     */
+    public boolean isExpired(long minValidity) {
         boolean expired;
         Date exp;
         if (nonNull(expiresIn)) {
-            expired = System.currentTimeMillis() + tokenMinValidity > createdAt + (expiresIn * 1000);
+            expired = System.currentTimeMillis() + minValidity > createdAt + (expiresIn * 1000);
         } else if (nonNull(exp = (Date) this.getClaim(OpenIdConstant.EXPIRATION_IDENTIFIER))) {
-            expired = System.currentTimeMillis() + tokenMinValidity > exp.getTime();
+            expired = System.currentTimeMillis() + minValidity > exp.getTime();
         } else {
             throw new IllegalStateException("Missing expiration time (exp) claim in access token");
         }
@@ -76,10 +76,18 @@ public class IdentityTokenImpl implements IdentityToken {
 
     @Override
     public boolean isExpired() {
+        return isExpired(tokenMinValidity);
+    }
+
+    /**
+     * @param minValidity the number of milliseconds the token must at least be valid
+     * @return whether the token expires within the given time
+     */
+    public boolean isExpired(long minValidity) {
         boolean expired;
         Optional<Instant> expirationTime = this.getJwtClaims().getExpirationTime();
         if (expirationTime.isPresent()) {
-            expired = System.currentTimeMillis() + tokenMinValidity > expirationTime.get().toEpochMilli();
+            expired = System.currentTimeMillis() + minValidity > expirationTime.get().toEpochMilli();
         } else {
             throw new IllegalStateException("Missing expiration time (exp) claim in identity token");
         }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import static java.lang.Thread.currentThread;
+import static java.util.logging.Level.FINE;
+
+/**
+ * Creates the executors Soteria uses to run work off the request thread.
+ *
+ * <p>
+ * Soteria is compiled for a Java version without virtual threads, so they are obtained
+ * reflectively when the runtime supports them.
+ */
+public final class ExecutorServices {
+
+    private static final Logger LOGGER = Logger.getLogger(ExecutorServices.class.getName());
+
+    private ExecutorServices() {}
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task when the runtime supports
+     * virtual threads, and otherwise an executor that uses a pool of daemon threads.
+     *
+     * @param name the name used for the threads of the fallback pool
+     * @return a new executor service
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.log(FINE, "Virtual threads not available, using platform threads for " + name, e);
+            return Executors.newCachedThreadPool(daemonThreadFactory(name));
+        }
+    }
+
+    /**
+     * @param name the prefix for the thread names
+     * @return a factory for daemon threads, so that Soteria's threads never keep the JVM alive
+     */
+    public static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Wraps a supplier so that it runs with the context class loader of the thread calling this
+     * method, which is typically the application's class loader.
+     *
+     * @param supplier the supplier to wrap
+     * @return a supplier that can be run by any thread
+     */
+    public static <T> Supplier<T> withContextClassLoader(Supplier<T> supplier) {
+        ClassLoader contextClassLoader = currentThread().getContextClassLoader();
+
+        return () -> {
+            Thread thread = currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(contextClassLoader);
+            try {
+                return supplier.get();
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * A small, bounded cache in which every entry expires after its own time-to-live.
+ *
+ * <p>
+ * When the cache is full, the entry that was least recently used ({@link EvictionPolicy#LRU}) or
+ * least recently added ({@link EvictionPolicy#FIFO}) is evicted. Expired entries are removed when
+ * they are encountered. All operations hold the cache's monitor only for the duration of a map
+ * operation; values are never computed while holding it.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class ExpiringCache<K, V> {
+
+    public enum EvictionPolicy {
+        LRU,
+        FIFO
+    }
+
+    private final int maxSize;
+    private final Map<K, CacheEntry<V>> entries; // guarded by this
+
+    public ExpiringCache(int maxSize) {
+        this(maxSize, EvictionPolicy.LRU);
+    }
+
+    public ExpiringCache(int maxSize, EvictionPolicy evictionPolicy) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, evictionPolicy == EvictionPolicy.LRU) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                return size() > ExpiringCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param key the key
+     * @return the value for the key, or null if there is none or it has expired
+     */
+    public V get(K key) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            CacheEntry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            if (entry.isExpired(now)) {
+                entries.remove(key);
+                return null;
+            }
+
+            return entry.value();
+        }
+    }
+
+    /**
+     * Stores a value. Values with a zero or negative time-to-live are not stored.
+     *
+     * @param key the key
+     * @param value the value
+     * @param timeToLive how long the value may be handed out
+     */
+    public void put(K key, V value, Duration timeToLive) {
+        if (maxSize <= 0 || timeToLive.isZero() || timeToLive.isNegative()) {
+            return;
+        }
+
+        CacheEntry<V> entry = new CacheEntry<>(value, System.nanoTime() + timeToLive.toNanos());
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all entries that match the given predicate.
+     *
+     * @param predicate tested against the key and the value of each entry
+     */
+    public synchronized void removeIf(BiPredicate<? super K, ? super V> predicate) {
+        entries.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue().value()));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record CacheEntry<V>(V value, long expiresAtNanos) {
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.utils;
+
+import java.time.Duration;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Reads Soteria specific tuning settings that have no counterpart in the Jakarta Security
+ * annotations from system properties.
+ *
+ * <p>
+ * All settings are prefixed with {@value #PREFIX}. Invalid values are logged and replaced by
+ * the supplied default.
+ */
+public final class SystemProperties {
+
+    private static final Logger LOGGER = Logger.getLogger(SystemProperties.class.getName());
+
+    public static final String PREFIX = "org.glassfish.soteria.";
+
+    private SystemProperties() {}
+
+    public static String getString(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        return Boolean.parseBoolean(value.trim());
+    }
+
+    public static int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logInvalidValue(name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a duration setting expressed in seconds.
+     *
+     * @param name the name of the setting, without the prefix
+     * @param defaultValue the value to use when the setting is absent or invalid
+     * @return the configured duration
+     */
+    public static Duration getSeconds(String name, Duration defaultValue) {
+        String value = getString(name, null);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            logInvalidValue(name, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static void logInvalidValue(String name, String value, Object defaultValue) {
+        LOGGER.log(WARNING, "Invalid value {0} for {1}, using {2} instead", new Object[] { value, PREFIX + name, defaultValue });
+    }
+
+}
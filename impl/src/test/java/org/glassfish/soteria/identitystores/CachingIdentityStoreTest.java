@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores;
+
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.INVALID_RESULT;
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.Status.INVALID;
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.Status.VALID;
+
+import jakarta.enterprise.inject.spi.Bean;
+import jakarta.security.enterprise.credential.Credential;
+import jakarta.security.enterprise.credential.UsernamePasswordCredential;
+import jakarta.security.enterprise.identitystore.CredentialValidationResult;
+import jakarta.security.enterprise.identitystore.IdentityStore;
+
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.Set;
+
+import org.glassfish.soteria.TokenCredential;
+import org.glassfish.soteria.identitystores.jwt.JsonWebTokenImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CachingIdentityStoreTest {
+
+    /**
+     * Accepts the password "secret", and tokens of the form "token.&lt;exp&gt;" until their exp.
+     */
+    private static class CountingIdentityStore implements IdentityStore {
+
+        int validations;
+
+        @Override
+        public CredentialValidationResult validate(Credential credential) {
+            validations++;
+
+            if (credential instanceof UsernamePasswordCredential usernamePassword) {
+                return usernamePassword.compareTo(usernamePassword.getCaller(), "secret") ?
+                    new CredentialValidationResult(usernamePassword.getCaller()) : INVALID_RESULT;
+            }
+
+            String token = ((TokenCredential) credential).getSignedJWT();
+            Long expirationTime = token.equals("token") ? null : Long.valueOf(token.substring("token.".length()));
+            if (expirationTime != null && expirationTime * 1000 <= System.currentTimeMillis()) {
+                return INVALID_RESULT;
+            }
+
+            return new CredentialValidationResult(
+                new JsonWebTokenImpl("caller", "issuer", expirationTime, null, Set.of(), Set.of(), token, null, null), Set.of());
+        }
+    }
+
+    private final CountingIdentityStore identityStore = new CountingIdentityStore();
+    private final CachingIdentityStore cachingIdentityStore =
+        new CachingIdentityStore(identityStore, "CountingIdentityStore", Duration.ofMinutes(5), Duration.ofMinutes(5));
+
+    @Test
+    public void validPasswordIsRemembered() {
+        Assert.assertEquals(VALID, cachingIdentityStore.validate(new UsernamePasswordCredential("caller", "secret")).getStatus());
+        Assert.assertEquals(VALID, cachingIdentityStore.validate(new UsernamePasswordCredential("caller", "secret")).getStatus());
+        Assert.assertEquals(1, identityStore.validations);
+    }
+
+    @Test
+    public void invalidPasswordIsNotRemembered() {
+        Assert.assertEquals(INVALID, cachingIdentityStore.validate(new UsernamePasswordCredential("caller", "wrong")).getStatus());
+        Assert.assertEquals(INVALID, cachingIdentityStore.validate(new UsernamePasswordCredential("caller", "wrong")).getStatus());
+        Assert.assertEquals(2, identityStore.validations);
+    }
+
+    @Test
+    public void tokenIsRememberedUntilItExpires() throws InterruptedException {
+        TokenCredential token = new TokenCredential("token." + (System.currentTimeMillis() / 1000 + 2));
+
+        Assert.assertEquals(VALID, cachingIdentityStore.validate(token).getStatus());
+        Assert.assertEquals(VALID, cachingIdentityStore.validate(token).getStatus());
+        Assert.assertEquals(1, identityStore.validations);
+
+        Thread.sleep(2100);
+
+        Assert.assertEquals(INVALID, cachingIdentityStore.validate(token).getStatus());
+        Assert.assertEquals(2, identityStore.validations);
+    }
+
+    @Test
+    public void tokenWithoutExpirationTimeIsNotRemembered() {
+        TokenCredential token = new TokenCredential("token");
+
+        Assert.assertEquals(VALID, cachingIdentityStore.validate(token).getStatus());
+        Assert.assertEquals(VALID, cachingIdentityStore.validate(token).getStatus());
+        Assert.assertEquals(2, identityStore.validations);
+    }
+
+    @Test
+    public void proxiedStoreIsNamedAfterItsBean() {
+        // Client proxies of beans that are only typed as IdentityStore don't carry the name of the store
+        IdentityStore proxy = (IdentityStore) Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[] { IdentityStore.class },
+            (instance, method, args) -> method.invoke(identityStore, args));
+
+        System.setProperty("org.glassfish.soteria.identityStoreCache.CountingIdentityStore.ttl", "300");
+        try {
+            Assert.assertSame(proxy, CachingIdentityStore.wrapIfConfigured(proxy));
+
+            IdentityStore wrapped = CachingIdentityStore.wrapIfConfigured(bean(CountingIdentityStore.class, IdentityStore.class), proxy);
+            Assert.assertTrue(wrapped instanceof CachingIdentityStore);
+
+            Assert.assertEquals(VALID, wrapped.validate(new UsernamePasswordCredential("caller", "secret")).getStatus());
+            Assert.assertEquals(VALID, wrapped.validate(new UsernamePasswordCredential("caller", "secret")).getStatus());
+            Assert.assertEquals(1, identityStore.validations);
+
+            // A store class among the bean types wins over the bean class, which is the declaring class for producers
+            Assert.assertTrue(CachingIdentityStore.wrapIfConfigured(
+                bean(CachingIdentityStoreTest.class, IdentityStore.class, CountingIdentityStore.class), proxy) instanceof CachingIdentityStore);
+        } finally {
+            System.clearProperty("org.glassfish.soteria.identityStoreCache.CountingIdentityStore.ttl");
+        }
+    }
+
+    private static Bean<?> bean(Class<?> beanClass, Type... types) {
+        return (Bean<?>) Proxy.newProxyInstance(
+            CachingIdentityStoreTest.class.getClassLoader(),
+            new Class<?>[] { Bean.class },
+            (instance, method, args) -> switch (method.getName()) {
+                case "getBeanClass" -> beanClass;
+                case "getTypes" -> Set.of(types);
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+}
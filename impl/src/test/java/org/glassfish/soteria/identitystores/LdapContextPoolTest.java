@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.naming.ldap.LdapContext;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LdapContextPoolTest {
+
+    // Also used by the pool's background maintenance
+    private final List<LdapContext> created = new CopyOnWriteArrayList<>();
+    private final Set<LdapContext> closed = ConcurrentHashMap.newKeySet();
+
+    private LdapContextPool pool;
+
+    @After
+    public void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private LdapContext createContext() {
+        LdapContext[] context = new LdapContext[1];
+        context[0] = (LdapContext) Proxy.newProxyInstance(
+            LdapContext.class.getClassLoader(),
+            new Class<?>[] { LdapContext.class },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "close" -> {
+                    closed.add(context[0]);
+                    yield null;
+                }
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> null;
+            });
+
+        created.add(context[0]);
+        return context[0];
+    }
+
+    private LdapContextPool createPool(int minSize, int maxSize, Duration maxWait) {
+        pool = new LdapContextPool("test", minSize, maxSize, Duration.ofMinutes(5), Duration.ofMinutes(5), maxWait, this::createContext);
+        return pool;
+    }
+
+    @Test
+    public void releasedContextIsReused() throws Exception {
+        createPool(0, 2, Duration.ofSeconds(1));
+
+        LdapContext context = pool.borrow(this::createContext);
+        pool.release(context);
+
+        Assert.assertSame(context, pool.borrow(this::createContext));
+        Assert.assertEquals(1, created.size());
+        Assert.assertTrue(closed.isEmpty());
+    }
+
+    @Test
+    public void invalidatedContextIsClosedAndNotReused() throws Exception {
+        createPool(0, 1, Duration.ofMillis(100));
+
+        LdapContext context = pool.borrow(this::createContext);
+        pool.invalidate(context);
+
+        Assert.assertTrue(closed.contains(context));
+        Assert.assertNotSame(context, pool.borrow(this::createContext));
+        Assert.assertEquals(2, created.size());
+    }
+
+    @Test
+    public void borrowTimesOutAfterMaxWait() throws Exception {
+        createPool(0, 1, Duration.ofMillis(100));
+
+        pool.borrow(this::createContext);
+
+        long start = System.nanoTime();
+        try {
+            pool.borrow(this::createContext);
+            Assert.fail("Borrowing beyond maxSize should time out");
+        } catch (IdentityStoreRuntimeException e) {
+            Assert.assertTrue(System.nanoTime() - start >= Duration.ofMillis(100).toNanos());
+        }
+
+        Assert.assertEquals(1, created.size());
+    }
+
+    @Test
+    public void closeClosesIdleContextsAndRefusesBorrowers() throws Exception {
+        createPool(0, 2, Duration.ofSeconds(1));
+
+        LdapContext idle = pool.borrow(this::createContext);
+        LdapContext borrowed = pool.borrow(this::createContext);
+        pool.release(idle);
+
+        pool.close();
+        Assert.assertTrue(closed.contains(idle));
+        Assert.assertFalse(closed.contains(borrowed));
+
+        pool.release(borrowed);
+        Assert.assertTrue(closed.contains(borrowed));
+
+        try {
+            pool.borrow(this::createContext);
+            Assert.fail("A closed pool should not hand out contexts");
+        } catch (IdentityStoreRuntimeException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void maintainOpensMinSizeContexts() throws Exception {
+        createPool(2, 4, Duration.ofSeconds(1));
+
+        pool.maintain();
+        pool.maintain();
+        Assert.assertEquals(2, created.size());
+
+        // Borrowing the pre-opened contexts doesn't create new ones
+        pool.borrow(this::createContext);
+        pool.borrow(this::createContext);
+        Assert.assertEquals(2, created.size());
+    }
+}
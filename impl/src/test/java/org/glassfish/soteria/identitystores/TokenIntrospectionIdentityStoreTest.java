@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores;
+
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.Status.INVALID;
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.Status.NOT_VALIDATED;
+import static jakarta.security.enterprise.identitystore.CredentialValidationResult.Status.VALID;
+
+import jakarta.security.enterprise.identitystore.CredentialValidationResult;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.glassfish.soteria.TokenCredential;
+import org.glassfish.soteria.identitystores.introspection.IntrospectionClient;
+import org.glassfish.soteria.identitystores.introspection.IntrospectionConfiguration;
+import org.glassfish.soteria.identitystores.introspection.IntrospectionResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TokenIntrospectionIdentityStoreTest {
+
+    /**
+     * Answers with the current response, or fails if there is none.
+     */
+    private static class StubIntrospectionClient extends IntrospectionClient {
+
+        final AtomicInteger introspections = new AtomicInteger();
+        volatile IntrospectionResponse response;
+        volatile CountDownLatch release;
+
+        StubIntrospectionClient(IntrospectionConfiguration configuration) {
+            super(configuration);
+        }
+
+        @Override
+        public IntrospectionResponse introspect(String token) {
+            introspections.incrementAndGet();
+
+            if (release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (response == null) {
+                throw new IdentityStoreRuntimeException("Introspection endpoint responded with status 503");
+            }
+
+            return response;
+        }
+    }
+
+    private static final TokenCredential TOKEN = new TokenCredential("opaque-token");
+
+    private static IntrospectionConfiguration configuration(Duration maxCacheTTL, Duration negativeCacheTTL) {
+        return new IntrospectionConfiguration(
+            URI.create("https://idp.example.com/introspect"), "client", "secret",
+            Duration.ofSeconds(5), Duration.ofSeconds(5),
+            maxCacheTTL, negativeCacheTTL, 100,
+            "preferred_username", "groups", false, 100);
+    }
+
+    private static IntrospectionResponse active(Long expirationTime) {
+        return new IntrospectionResponse(true, "caller", Set.of("a", "b"), expirationTime, null);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private final IntrospectionConfiguration configuration = configuration(Duration.ofMinutes(5), Duration.ofMinutes(1));
+    private final StubIntrospectionClient client = new StubIntrospectionClient(configuration);
+    private final TokenIntrospectionIdentityStore identityStore = new TokenIntrospectionIdentityStore(configuration, client);
+
+    @Test
+    public void activeTokenIsRemembered() {
+        client.response = active(now() + 3600);
+
+        for (int i = 0; i < 2; i++) {
+            CredentialValidationResult result = identityStore.validate(TOKEN);
+            Assert.assertEquals(VALID, result.getStatus());
+            Assert.assertEquals("caller", result.getCallerPrincipal().getName());
+            Assert.assertEquals(Set.of("a", "b"), result.getCallerGroups());
+        }
+        Assert.assertEquals(1, client.introspections.get());
+
+        Assert.assertEquals(VALID, identityStore.validate(new TokenCredential("other-token")).getStatus());
+        Assert.assertEquals(2, client.introspections.get());
+    }
+
+    @Test
+    public void inactiveTokenIsRememberedForTheNegativeTtl() {
+        client.response = IntrospectionResponse.INACTIVE;
+
+        Assert.assertEquals(INVALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(INVALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(1, client.introspections.get());
+    }
+
+    @Test
+    public void expiredOrNotYetValidTokenIsInvalid() {
+        client.response = active(now() - 1);
+        Assert.assertEquals(INVALID, identityStore.validate(TOKEN).getStatus());
+
+        client.response = new IntrospectionResponse(true, "caller", Set.of(), null, now() + 3600);
+        Assert.assertEquals(INVALID, identityStore.validate(new TokenCredential("other-token")).getStatus());
+
+        client.response = new IntrospectionResponse(true, null, Set.of(), null, null);
+        Assert.assertEquals(INVALID, identityStore.validate(new TokenCredential("anonymous-token")).getStatus());
+    }
+
+    @Test
+    public void activeTokenIsRememberedUntilItExpires() throws InterruptedException {
+        client.response = active(now() + 2);
+
+        Assert.assertEquals(VALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(VALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(1, client.introspections.get());
+
+        Thread.sleep(2100);
+
+        Assert.assertEquals(INVALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(2, client.introspections.get());
+    }
+
+    @Test
+    public void activeTokenIsRememberedForAtMostTheMaximumTtl() throws InterruptedException {
+        IntrospectionConfiguration configuration = configuration(Duration.ofSeconds(1), Duration.ofMinutes(1));
+        StubIntrospectionClient client = new StubIntrospectionClient(configuration);
+        TokenIntrospectionIdentityStore identityStore = new TokenIntrospectionIdentityStore(configuration, client);
+        client.response = active(now() + 3600);
+
+        Assert.assertEquals(VALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(VALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(1, client.introspections.get());
+
+        Thread.sleep(1100);
+
+        Assert.assertEquals(VALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(2, client.introspections.get());
+    }
+
+    @Test
+    public void concurrentLookupsShareOneIntrospection() throws Exception {
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        client.response = active(now() + 3600);
+        client.release = new CountDownLatch(1);
+
+        try {
+            List<Future<CredentialValidationResult>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> identityStore.validate(TOKEN)));
+            }
+
+            // Give all requests the time to find the running introspection
+            Thread.sleep(200);
+            client.release.countDown();
+
+            for (Future<CredentialValidationResult> result : results) {
+                Assert.assertEquals(VALID, result.get(10, TimeUnit.SECONDS).getStatus());
+            }
+            Assert.assertEquals(1, client.introspections.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void nothingIsRememberedWhenTheEndpointFails() {
+        Assert.assertEquals(NOT_VALIDATED, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(NOT_VALIDATED, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(2, client.introspections.get());
+
+        client.response = active(now() + 3600);
+        Assert.assertEquals(VALID, identityStore.validate(TOKEN).getStatus());
+        Assert.assertEquals(3, client.introspections.get());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BCryptPasswordHashTest {
+
+    private BCryptPasswordHash hashImpl = new BCryptPasswordHash();
+
+    @Test
+    public void verify() {
+        // Reference hashes from the OpenBSD / crypt_blowfish test vectors
+        Assert.assertTrue(hashImpl.verify("U*U".toCharArray(), "$2a$05$CCCCCCCCCCCCCCCCCCCCC.E5YPO9kmyuRGyh0XouQYb4YMJKvyOeW"));
+        Assert.assertTrue(hashImpl.verify("U*U".toCharArray(), "$2b$05$CCCCCCCCCCCCCCCCCCCCC.E5YPO9kmyuRGyh0XouQYb4YMJKvyOeW"));
+        Assert.assertTrue(hashImpl.verify("".toCharArray(), "$2b$05$CCCCCCCCCCCCCCCCCCCCC.7uG0VCzI2bS7j6ymqJi9CdcdxiRTWNy"));
+        Assert.assertTrue(hashImpl.verify(
+            "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789chars after 72 are ignored".toCharArray(),
+            "$2a$05$abcdefghijklmnopqrstuu5s2v8.iXieOjg/.AySBTTZIIVFJeBui"));
+    }
+
+    @Test
+    public void verify_failure() {
+        Assert.assertFalse(hashImpl.verify("U*V".toCharArray(), "$2a$05$CCCCCCCCCCCCCCCCCCCCC.E5YPO9kmyuRGyh0XouQYb4YMJKvyOeW"));
+        Assert.assertFalse(hashImpl.verify("U*U".toCharArray(), "$2a$05$CCCCCCCCCCCCCCCCCCCCC.7uG0VCzI2bS7j6ymqJi9CdcdxiRTWNy"));
+    }
+
+    @Test
+    public void generateAndVerify() {
+        hashImpl.initialize(Map.of("BCryptPasswordHash.Cost", "4"));
+
+        String hash = hashImpl.generate("Soteria".toCharArray());
+
+        Assert.assertTrue(hash.startsWith("$2b$04$"));
+        Assert.assertTrue(hashImpl.verify("Soteria".toCharArray(), hash));
+        Assert.assertFalse(hashImpl.verify("SomethingElse".toCharArray(), hash));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verify_wrongVersion() {
+        hashImpl.verify("U*U".toCharArray(), "$2x$05$CCCCCCCCCCCCCCCCCCCCC.E5YPO9kmyuRGyh0XouQYb4YMJKvyOeW");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void initialize_wrongCost() {
+        hashImpl.initialize(Map.of("BCryptPasswordHash.Cost", "3"));
+    }
+
+}
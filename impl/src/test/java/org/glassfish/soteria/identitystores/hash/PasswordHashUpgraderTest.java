@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PasswordHashUpgraderTest {
+
+    @Test
+    public void sinkIsPreparedOnTheCallingThreadAndCalledInTheBackground() throws Exception {
+        Thread callingThread = Thread.currentThread();
+        CompletableFuture<Thread> preparedOn = new CompletableFuture<>();
+        CompletableFuture<String> upgradedHash = new CompletableFuture<>();
+
+        PasswordHashUpgradeSink sink = new PasswordHashUpgradeSink() {
+            @Override
+            public void upgrade(String outdatedHash, String upgradedHash) {
+                throw new IllegalStateException("Only the prepared sink should be called");
+            }
+
+            @Override
+            public PasswordHashUpgradeSink prepare() {
+                preparedOn.complete(Thread.currentThread());
+                return (outdatedHash, newHash) -> upgradedHash.complete(outdatedHash + " -> " + newHash);
+            }
+        };
+
+        PasswordHashUpgrader.upgrade("outdated-prepare", "secret".toCharArray(), password -> "new:" + new String(password), List.of(sink));
+
+        Assert.assertSame(callingThread, preparedOn.getNow(null));
+        Assert.assertEquals("outdated-prepare -> new:secret", upgradedHash.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failingPrepareDoesNotBlockLaterUpgrades() throws Exception {
+        CompletableFuture<String> upgradedHash = new CompletableFuture<>();
+
+        PasswordHashUpgrader.upgrade("outdated-failing", "secret".toCharArray(), password -> "new", List.of(new PasswordHashUpgradeSink() {
+            @Override
+            public void upgrade(String outdatedHash, String upgradedHash) {
+            }
+
+            @Override
+            public PasswordHashUpgradeSink prepare() {
+                throw new IllegalStateException("No DataSource");
+            }
+        }));
+
+        PasswordHashUpgrader.upgrade("outdated-failing", "secret".toCharArray(), password -> "new",
+            List.of((outdatedHash, newHash) -> upgradedHash.complete(newHash)));
+
+        Assert.assertEquals("new", upgradedHash.get(10, TimeUnit.SECONDS));
+    }
+}
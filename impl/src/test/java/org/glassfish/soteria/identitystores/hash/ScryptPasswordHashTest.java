@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScryptPasswordHashTest {
+
+    private ScryptPasswordHash hashImpl = new ScryptPasswordHash();
+
+    @Test
+    public void verify() {
+        // Test vectors from RFC 7914, section 12
+        Assert.assertTrue(hashImpl.verify("password".toCharArray(), encodedPassword(1024, 8, 16, "NaCl",
+            "fdbabe1c9d3472007856e7190d01e9fe7c6ad7cbc8237830e77376634b3731622eaf30d92e22a3886ff109279d9830dac727afb94a83ee6d8360cbdfa2cc0640")));
+        Assert.assertTrue(hashImpl.verify("pleaseletmein".toCharArray(), encodedPassword(16384, 8, 1, "SodiumChloride",
+            "7023bdcb3afd7348461c06cd81fd38ebfda8fbba904f8e3ea9b543f6545da1f2d5432955613f0fcf")));
+    }
+
+    @Test
+    public void verify_failure() {
+        Assert.assertFalse(hashImpl.verify("Password".toCharArray(), encodedPassword(1024, 8, 16, "NaCl",
+            "fdbabe1c9d3472007856e7190d01e9fe7c6ad7cbc8237830e77376634b3731622eaf30d92e22a3886ff109279d9830dac727afb94a83ee6d8360cbdfa2cc0640")));
+        Assert.assertFalse(hashImpl.verify("password".toCharArray(), encodedPassword(1024, 8, 1, "NaCl",
+            "fdbabe1c9d3472007856e7190d01e9fe7c6ad7cbc8237830e77376634b3731622eaf30d92e22a3886ff109279d9830dac727afb94a83ee6d8360cbdfa2cc0640")));
+    }
+
+    @Test
+    public void generateAndVerify() {
+        hashImpl.initialize(Map.of("ScryptPasswordHash.CostParameter", "1024"));
+
+        String hash = hashImpl.generate("Soteria".toCharArray());
+
+        Assert.assertTrue(hash.startsWith("scrypt:1024:8:1:"));
+        Assert.assertTrue(hashImpl.verify("Soteria".toCharArray(), hash));
+        Assert.assertFalse(hashImpl.verify("SomethingElse".toCharArray(), hash));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verify_wrongCost() {
+        // Not a power of 2
+        hashImpl.verify("password".toCharArray(), encodedPassword(1000, 8, 16, "NaCl", "fdbabe1c"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void initialize_wrongCost() {
+        hashImpl.initialize(Map.of("ScryptPasswordHash.CostParameter", "1000"));
+    }
+
+    private String encodedPassword(int cost, int blockSize, int parallelization, String salt, String hexHash) {
+        return "scrypt:" + cost + ":" + blockSize + ":" + parallelization + ":" +
+            Base64.getEncoder().encodeToString(salt.getBytes()) + ":" +
+            Base64.getEncoder().encodeToString(HexFormat.of().parseHex(hexHash));
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.hash;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VerifiedPasswordCacheTest {
+
+    private static final String HASH = "PBKDF2WithHmacSHA256:2048:c2FsdA==:aGFzaA==";
+
+    @Test
+    public void rememberedPasswordIsVerified() {
+        VerifiedPasswordCache cache = new VerifiedPasswordCache(Duration.ofMinutes(1), 10);
+        cache.verified(cache.key("Soteria".toCharArray(), HASH));
+
+        Assert.assertTrue(cache.isVerified(cache.key("Soteria".toCharArray(), HASH)));
+    }
+
+    @Test
+    public void otherPasswordOrHashIsNotVerified() {
+        VerifiedPasswordCache cache = new VerifiedPasswordCache(Duration.ofMinutes(1), 10);
+        cache.verified(cache.key("Soteria".toCharArray(), HASH));
+
+        Assert.assertFalse(cache.isVerified(cache.key("SomethingElse".toCharArray(), HASH)));
+        Assert.assertFalse(cache.isVerified(cache.key("Soteria".toCharArray(), HASH.replace("2048", "4096"))));
+    }
+
+    @Test
+    public void keysDifferBetweenInstances() {
+        ByteBuffer key1 = new VerifiedPasswordCache(Duration.ofMinutes(1), 10).key("Soteria".toCharArray(), HASH);
+        ByteBuffer key2 = new VerifiedPasswordCache(Duration.ofMinutes(1), 10).key("Soteria".toCharArray(), HASH);
+
+        Assert.assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void disabledWithoutTimeToLive() {
+        Assert.assertFalse(new VerifiedPasswordCache(Duration.ZERO, 10).isEnabled());
+    }
+
+}
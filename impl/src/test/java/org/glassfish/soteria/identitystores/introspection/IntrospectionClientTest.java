@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.introspection;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Set;
+
+import org.glassfish.soteria.identitystores.IdentityStoreRuntimeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntrospectionClientTest {
+
+    private final IntrospectionClient client = new IntrospectionClient(new IntrospectionConfiguration(
+        URI.create("https://idp.example.com/introspect"), "client", "secret",
+        Duration.ofSeconds(5), Duration.ofSeconds(5),
+        Duration.ofMinutes(5), Duration.ofSeconds(30), 100,
+        "preferred_username", "groups", false, 100));
+
+    private IntrospectionResponse parse(String body) {
+        return client.parse(new ByteArrayInputStream(body.getBytes(UTF_8)));
+    }
+
+    @Test
+    public void activeResponse() {
+        IntrospectionResponse response = parse("""
+            {"active": true, "preferred_username": "caller", "sub": "1234", "groups": ["a", "b"],
+             "exp": 1900000000, "nbf": 1800000000, "ext": {"active": false, "groups": ["c"]}}""");
+
+        Assert.assertTrue(response.active());
+        Assert.assertEquals("caller", response.callerName());
+        Assert.assertEquals(Set.of("a", "b"), response.groups());
+        Assert.assertEquals(Long.valueOf(1900000000), response.expirationTime());
+        Assert.assertEquals(Long.valueOf(1800000000), response.notBefore());
+    }
+
+    @Test
+    public void inactiveResponse() {
+        Assert.assertSame(IntrospectionResponse.INACTIVE, parse("""
+            {"active": false, "preferred_username": "caller"}"""));
+        Assert.assertSame(IntrospectionResponse.INACTIVE, parse("""
+            {"active": "true", "preferred_username": "caller"}"""));
+        Assert.assertSame(IntrospectionResponse.INACTIVE, parse("{}"));
+    }
+
+    @Test
+    public void callerNameFallsBackToSubject() {
+        Assert.assertEquals("1234", parse("""
+            {"sub": "1234", "active": true}""").callerName());
+        Assert.assertEquals("1234", parse("""
+            {"active": true, "preferred_username": 42, "sub": "1234"}""").callerName());
+        Assert.assertNull(parse("""
+            {"active": true}""").callerName());
+    }
+
+    @Test
+    public void groupsAreReadFromAnArrayOrASpaceSeparatedString() {
+        IntrospectionClient scopeClient = new IntrospectionClient(new IntrospectionConfiguration(
+            URI.create("https://idp.example.com/introspect"), null, null,
+            Duration.ofSeconds(5), Duration.ofSeconds(5),
+            Duration.ofMinutes(5), Duration.ofSeconds(30), 100,
+            "sub", "scope", false, 100));
+
+        Assert.assertEquals(Set.of("read", "write"), scopeClient.parse(new ByteArrayInputStream("""
+            {"active": true, "sub": "caller", "scope": " read  write "}""".getBytes(UTF_8))).groups());
+        Assert.assertEquals(Set.of("read", "write"), scopeClient.parse(new ByteArrayInputStream("""
+            {"active": true, "sub": "caller", "scope": ["read", 1, {"x": "y"}, "write"]}""".getBytes(UTF_8))).groups());
+        Assert.assertEquals(Set.of(), scopeClient.parse(new ByteArrayInputStream("""
+            {"active": true, "sub": "caller", "scope": 1}""".getBytes(UTF_8))).groups());
+    }
+
+    @Test
+    public void responseThatIsNotAnObjectIsRejected() {
+        for (String body : new String[] { "[]", "\"active\"", "{\"active\": true", "" }) {
+            try {
+                parse(body);
+                Assert.fail("Expected " + body + " to be rejected");
+            } catch (IdentityStoreRuntimeException e) {
+                // Expected
+            }
+        }
+    }
+}
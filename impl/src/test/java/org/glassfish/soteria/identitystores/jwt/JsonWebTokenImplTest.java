@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.jwt;
+
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.json.Json;
+import jakarta.json.JsonValue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JsonWebTokenImplTest {
+
+    @Test
+    public void registeredClaimsAreReadFromTheClaims() {
+        Map<String, JsonValue> claims = Map.of(
+            "iss", Json.createValue("issuer"),
+            "exp", Json.createValue(2000000000L),
+            "iat", Json.createValue(1700000000L),
+            "aud", Json.createArrayBuilder().add("a").add("b").build(),
+            "groups", Json.createValue("admin"));
+
+        JsonWebTokenImpl jsonWebToken = new JsonWebTokenImpl("caller", claims);
+
+        Assert.assertEquals("issuer", jsonWebToken.getIssuer());
+        Assert.assertEquals(Long.valueOf(2000000000L), jsonWebToken.getExpirationTime());
+        Assert.assertEquals(Long.valueOf(1700000000L), jsonWebToken.getIssuedAtTime());
+        Assert.assertEquals(Set.of("a", "b"), jsonWebToken.getAudience());
+        Assert.assertEquals(Set.of("admin"), jsonWebToken.getGroups());
+    }
+
+    @Test
+    public void missingOrNonNumericTimesAreNull() {
+        JsonWebTokenImpl jsonWebToken = new JsonWebTokenImpl("caller", Map.of("exp", Json.createValue("2000000000")));
+
+        Assert.assertNull(jsonWebToken.getExpirationTime());
+        Assert.assertNull(jsonWebToken.getIssuedAtTime());
+    }
+
+    @Test
+    public void claimSetIsAPlainClaimLookup() {
+        byte[] payload = "{\"groups\":[\"claim\"],\"roles\":[\"admin\"]}".getBytes();
+
+        // Groups read from the configured "roles" claim
+        JsonWebTokenImpl jsonWebToken = new JsonWebTokenImpl("caller", "issuer", 2000000000L, 1700000000L, null, Set.of("admin"), null, payload, null);
+
+        Assert.assertEquals(Set.of("admin"), jsonWebToken.getGroups());
+        Assert.assertEquals(Set.of("claim"), jsonWebToken.claimSet("groups"));
+        Assert.assertEquals(Set.of("admin"), jsonWebToken.claimSet("roles"));
+    }
+}
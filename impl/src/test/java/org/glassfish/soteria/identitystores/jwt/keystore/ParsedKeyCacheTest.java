@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.jwt.keystore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParsedKeyCacheTest {
+
+    // Raw key material is a comma separated list of key IDs; a key is its key ID in upper case
+    private final List<String> parsedKeyIds = new ArrayList<>();
+
+    private final ParsedKeyCache<String> cache = new ParsedKeyCache<>(
+        (rawKey, keyId) -> {
+            parsedKeyIds.add(keyId);
+            String id = keyId != null ? keyId : rawKey.split(",")[0];
+            if (id.equals("broken")) {
+                throw new IllegalArgumentException("Unsupported key");
+            }
+            return id.toUpperCase();
+        },
+        rawKey -> rawKey.startsWith("single:") ? null : Arrays.asList(rawKey.split(",")));
+
+    @Test
+    public void everyKeyIsParsedOnceWhenTheKeySetIsFirstSeen() {
+        String rawKey = "a,b,c";
+
+        Assert.assertEquals("B", cache.get(rawKey, "b"));
+        Assert.assertEquals(List.of("a", "b", "c"), parsedKeyIds);
+
+        Assert.assertEquals("A", cache.get(rawKey, "a"));
+        Assert.assertEquals("A", cache.get(rawKey, null));
+        Assert.assertEquals("C", cache.get(rawKey, "c"));
+        Assert.assertEquals(3, parsedKeyIds.size());
+    }
+
+    @Test
+    public void unknownKeyIdIsNotParsed() {
+        String rawKey = "a,b";
+        cache.get(rawKey, "a");
+
+        for (int i = 0; i < 10; i++) {
+            try {
+                cache.get(rawKey, "unknown-" + i);
+                Assert.fail("Expected an unknown key ID");
+            } catch (UnknownKeyIdException e) {
+                // Expected
+            }
+        }
+
+        Assert.assertEquals(2, parsedKeyIds.size());
+    }
+
+    @Test
+    public void keyThatFailsToParseOnlyFailsItsOwnKeyId() {
+        String rawKey = "a,broken";
+
+        Assert.assertEquals("A", cache.get(rawKey, "a"));
+        try {
+            cache.get(rawKey, "broken");
+            Assert.fail("Expected the parse failure");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void newKeyMaterialStartsANewGeneration() {
+        Assert.assertEquals("A", cache.get("a,b", "a"));
+        Assert.assertEquals("A", cache.get(new String("a,b"), "a"));
+        Assert.assertEquals(2, parsedKeyIds.size());
+
+        Assert.assertEquals("C", cache.get("c", "c"));
+        try {
+            cache.get("c", "a");
+            Assert.fail("Keys of the previous generation should no longer be handed out");
+        } catch (UnknownKeyIdException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void singleKeyIsUsedForEveryKeyId() {
+        String rawKey = "single:key";
+
+        Assert.assertEquals("SINGLE:KEY", cache.get(rawKey, "any"));
+        Assert.assertEquals("SINGLE:KEY", cache.get(rawKey, null));
+        Assert.assertEquals(1, parsedKeyIds.size());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.jwt.token;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Set;
+
+import org.glassfish.soteria.identitystores.jwt.token.JwtTokenParser.RegisteredClaims;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JwtTokenParserTest {
+
+    private static RegisteredClaims parse(JwtTokenParser parser, String payload) {
+        return parser.parseRegisteredClaims(payload.getBytes(UTF_8));
+    }
+
+    @Test
+    public void registeredClaimsAreRead() {
+        RegisteredClaims claims = parse(new JwtTokenParser(), """
+            {"iss":"issuer","sub":"caller","exp":2000000000,"iat":1700000000,"aud":["a","b"],"groups":["admin","user"]}
+            """);
+
+        Assert.assertEquals("issuer", claims.issuer);
+        Assert.assertEquals(Long.valueOf(2000000000L), claims.expirationTime);
+        Assert.assertEquals(Long.valueOf(1700000000L), claims.issuedAtTime);
+        Assert.assertEquals(Set.of("a", "b"), claims.audience);
+        Assert.assertEquals(Set.of("admin", "user"), claims.groups);
+        Assert.assertEquals("caller", claims.principal());
+    }
+
+    @Test
+    public void claimsNestedInOtherClaimsAreSkipped() {
+        RegisteredClaims claims = parse(new JwtTokenParser(), """
+            {
+              "other": {"exp": 1, "iss": "nested", "deeper": [1, {"sub": "nested"}, [2, 3]]},
+              "list": [{"iat": 2}, [{"groups": ["nested"]}], "exp", null, true],
+              "exp": 2000000000,
+              "iat": 1700000000,
+              "aud": "audience",
+              "sub": "caller"
+            }
+            """);
+
+        Assert.assertNull(claims.issuer);
+        Assert.assertEquals(Long.valueOf(2000000000L), claims.expirationTime);
+        Assert.assertEquals(Long.valueOf(1700000000L), claims.issuedAtTime);
+        Assert.assertEquals(Set.of("audience"), claims.audience);
+        Assert.assertNull(claims.groups);
+        Assert.assertEquals("caller", claims.principal());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nonNumericExpirationTimeIsRejected() {
+        parse(new JwtTokenParser(), """
+            {"iss":"issuer","sub":"caller","exp":"2000000000","iat":1700000000}
+            """);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void payloadThatIsNotAnObjectIsRejected() {
+        parse(new JwtTokenParser(), "[\"exp\", 2000000000]");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void truncatedPayloadIsRejected() {
+        parse(new JwtTokenParser(), "{\"exp\": 2000000000, \"iss\": ");
+    }
+
+    @Test
+    public void principalIsTheFirstStringOfUpnPreferredUsernameAndSub() {
+        Assert.assertEquals("upn", parse(new JwtTokenParser(), """
+            {"sub":"sub","preferred_username":"preferred","upn":"upn"}
+            """).principal());
+
+        Assert.assertEquals("sub", parse(new JwtTokenParser(), """
+            {"upn":{"name":"upn"},"preferred_username":["preferred"],"sub":"sub"}
+            """).principal());
+    }
+
+    @Test
+    public void nestedGroupsClaimIsRead() {
+        JwtTokenParser parser = new JwtTokenParser(false, null, false, 0, "realm_access.roles");
+
+        RegisteredClaims claims = parse(parser, """
+            {"groups":["ignored"],"realm_access":{"other":{"roles":["nested"]},"roles":["admin"]},"sub":"caller"}
+            """);
+
+        Assert.assertEquals(Set.of("admin"), claims.groups);
+    }
+
+    @Test
+    public void namespaceIsStrippedFromClaimNames() {
+        JwtTokenParser parser = new JwtTokenParser(false, "https://example.com/", false);
+
+        RegisteredClaims claims = parse(parser, """
+            {"https://example.com/groups":["admin"],"https://example.com/exp":2000000000,"sub":"caller"}
+            """);
+
+        Assert.assertEquals(Set.of("admin"), claims.groups);
+        Assert.assertEquals(Long.valueOf(2000000000L), claims.expirationTime);
+    }
+}
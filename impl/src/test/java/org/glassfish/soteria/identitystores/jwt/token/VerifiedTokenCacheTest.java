@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.identitystores.jwt.token;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VerifiedTokenCacheTest {
+
+    private static final long NOW = 1700000000L;
+
+    private static PublicKey newKey() throws NoSuchAlgorithmException {
+        return KeyPairGenerator.getInstance("EC").generateKeyPair().getPublic();
+    }
+
+    @Test
+    public void verifiedTokenIsRememberedForItsKeyUntilItExpires() throws Exception {
+        PublicKey key = newKey();
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.verified("a.b.c", key, NOW + 60, NOW);
+
+        Assert.assertTrue(cache.isVerified("a.b.c", key, NOW));
+        Assert.assertTrue(cache.isVerified("a.b.c", key, NOW + 60));
+        Assert.assertFalse(cache.isVerified("a.b.c", key, NOW + 61));
+        Assert.assertFalse(cache.isVerified("a.b.c", newKey(), NOW));
+        Assert.assertFalse(cache.isVerified("a.b.d", key, NOW));
+    }
+
+    @Test
+    public void fullCacheForgetsTheLeastRecentlyUsedToken() throws Exception {
+        PublicKey key = newKey();
+        VerifiedTokenCache cache = new VerifiedTokenCache(2);
+        cache.verified("token.1", key, NOW + 60, NOW);
+        cache.verified("token.2", key, NOW + 60, NOW);
+        cache.isVerified("token.1", key, NOW);
+
+        cache.verified("token.3", key, NOW + 60, NOW);
+
+        Assert.assertTrue(cache.isVerified("token.1", key, NOW));
+        Assert.assertFalse(cache.isVerified("token.2", key, NOW));
+        Assert.assertTrue(cache.isVerified("token.3", key, NOW));
+    }
+}
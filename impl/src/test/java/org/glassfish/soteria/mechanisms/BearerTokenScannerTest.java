@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.mechanisms;
+
+import static org.glassfish.soteria.mechanisms.BearerTokenScanner.fromAuthorizationHeader;
+import static org.glassfish.soteria.mechanisms.BearerTokenScanner.fromCookieHeader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BearerTokenScannerTest {
+
+    @Test
+    public void authorizationHeader() {
+        Assert.assertEquals("a.b.c", fromAuthorizationHeader("Bearer a.b.c"));
+        Assert.assertEquals("a.b.c", fromAuthorizationHeader("bearer   a.b.c "));
+        Assert.assertNull(fromAuthorizationHeader("Bearer "));
+        Assert.assertNull(fromAuthorizationHeader("Bearer"));
+        Assert.assertNull(fromAuthorizationHeader("Bearera.b.c"));
+        Assert.assertNull(fromAuthorizationHeader("Basic dXNlcjpwYXNz"));
+        Assert.assertNull(fromAuthorizationHeader(null));
+    }
+
+    @Test
+    public void rfc6265CookieHeader() {
+        Assert.assertEquals("a.b.c", fromCookieHeader("Bearer=a.b.c", "Bearer"));
+        Assert.assertEquals("a.b.c", fromCookieHeader("session=1; Bearer=a.b.c; theme=dark", "Bearer"));
+        Assert.assertEquals("a.b.c", fromCookieHeader("session=1;Bearer = \"a.b.c\"", "Bearer"));
+    }
+
+    @Test
+    public void rfc2965CookieHeader() {
+        Assert.assertEquals("a.b.c", fromCookieHeader("$Version=1; Bearer=a.b.c; $Path=/", "Bearer"));
+        Assert.assertEquals("a.b.c", fromCookieHeader("$Version=1; session=1; $Path=/, Bearer=a.b.c", "Bearer"));
+    }
+
+    @Test
+    public void cookieNameMustMatchExactly() {
+        Assert.assertNull(fromCookieHeader("MyBearer=x; BearerToken=y", "Bearer"));
+        Assert.assertNull(fromCookieHeader("bearer=x", "Bearer"));
+        Assert.assertEquals("z", fromCookieHeader("BearerToken=y; Bearer=z", "Bearer"));
+    }
+
+    @Test
+    public void emptyCookieIsSkipped() {
+        Assert.assertEquals("a.b.c", fromCookieHeader("Bearer=; Bearer=a.b.c", "Bearer"));
+        Assert.assertNull(fromCookieHeader("Bearer=\"\"", "Bearer"));
+        Assert.assertNull(fromCookieHeader("", "Bearer"));
+        Assert.assertNull(fromCookieHeader(null, "Bearer"));
+    }
+}
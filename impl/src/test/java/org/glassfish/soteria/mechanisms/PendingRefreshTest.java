@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.mechanisms;
+
+import static jakarta.security.enterprise.AuthenticationStatus.SUCCESS;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.security.enterprise.AuthenticationStatus;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PendingRefreshTest {
+
+    private final PendingRefresh<String> pendingRefresh = new PendingRefresh<>();
+    private final AtomicInteger refreshes = new AtomicInteger();
+
+    private CompletableFuture<String> refresh() {
+        refreshes.incrementAndGet();
+        return new CompletableFuture<>();
+    }
+
+    @Test
+    public void concurrentRequestsShareOneReAuthentication() throws Exception {
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<CompletableFuture<AuthenticationStatus>>> results = new ArrayList<>();
+            List<CompletableFuture<AuthenticationStatus>> reAuthentications = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                CompletableFuture<AuthenticationStatus> reAuthentication = new CompletableFuture<>();
+                reAuthentications.add(reAuthentication);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return pendingRefresh.startReAuthentication(reAuthentication);
+                }));
+            }
+            start.countDown();
+
+            CompletableFuture<AuthenticationStatus> running = null;
+            int started = 0;
+            for (int i = 0; i < requests; i++) {
+                if (results.get(i).get(10, TimeUnit.SECONDS) == null) {
+                    started++;
+                    running = reAuthentications.get(i);
+                }
+            }
+            Assert.assertEquals(1, started);
+
+            for (Future<CompletableFuture<AuthenticationStatus>> result : results) {
+                CompletableFuture<AuthenticationStatus> other = result.get();
+                Assert.assertTrue(other == null || other == running);
+            }
+
+            running.complete(SUCCESS);
+            pendingRefresh.finishReAuthentication(running);
+
+            Assert.assertNull(pendingRefresh.startReAuthentication(new CompletableFuture<>()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void finishingAnotherReAuthenticationKeepsTheRunningOne() {
+        CompletableFuture<AuthenticationStatus> running = new CompletableFuture<>();
+        pendingRefresh.startReAuthentication(running);
+
+        pendingRefresh.finishReAuthentication(new CompletableFuture<>());
+
+        Assert.assertSame(running, pendingRefresh.startReAuthentication(new CompletableFuture<>()));
+    }
+
+    @Test
+    public void onlyOneBackgroundRefreshRuns() {
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        Assert.assertEquals(1, refreshes.get());
+
+        // Not taken into use before it's done
+        Assert.assertNull(pendingRefresh.takeBackgroundRefresh(true));
+
+        CompletableFuture<String> running = pendingRefresh.takeBackgroundRefresh(false);
+        Assert.assertNotNull(running);
+        Assert.assertNull(pendingRefresh.takeBackgroundRefresh(false));
+    }
+
+    @Test
+    public void finishedBackgroundRefreshIsTakenOnce() {
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        CompletableFuture<String> running = pendingRefresh.takeBackgroundRefresh(false);
+        running.complete("tokens");
+
+        pendingRefresh.startInBackground("refresh-token", () -> running);
+        Assert.assertSame(running, pendingRefresh.takeBackgroundRefresh(true));
+        Assert.assertNull(pendingRefresh.takeBackgroundRefresh(true));
+    }
+
+    @Test
+    public void rejectedRefreshTokenIsNotSentAgain() {
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        pendingRefresh.takeBackgroundRefresh(false);
+        pendingRefresh.rejected();
+
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        Assert.assertEquals(1, refreshes.get());
+
+        pendingRefresh.startInBackground("new-refresh-token", this::refresh);
+        Assert.assertEquals(2, refreshes.get());
+    }
+
+    @Test
+    public void successfulRefreshForgetsTheRejectedRefreshToken() {
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        pendingRefresh.takeBackgroundRefresh(false);
+        pendingRefresh.rejected();
+
+        pendingRefresh.succeeded();
+
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        Assert.assertEquals(2, refreshes.get());
+    }
+
+    @Test
+    public void failedRefreshIsRetriedAfterTheInterval() {
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        pendingRefresh.takeBackgroundRefresh(false);
+        pendingRefresh.retryAfter(Duration.ofHours(1));
+
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        Assert.assertEquals(1, refreshes.get());
+
+        pendingRefresh.retryAfter(Duration.ZERO);
+        pendingRefresh.startInBackground("refresh-token", this::refresh);
+        Assert.assertEquals(2, refreshes.get());
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.mechanisms.openid.controller;
+
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLSession;
+
+import jakarta.json.JsonObject;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ProviderMetadataControllerTest {
+
+    private static final String PROVIDER_URI = "https://idp.example.com/";
+    private static final String DOCUMENT_URI = "https://idp.example.com/.well-known/openid-configuration";
+
+    private record StubResponse(int statusCode, String body, HttpHeaders headers) implements HttpResponse<String> {
+
+        StubResponse(int statusCode, String body, String... cacheControl) {
+            this(statusCode, body, HttpHeaders.of(Map.of("Cache-Control", List.of(cacheControl)), (name, value) -> true));
+        }
+
+        @Override
+        public HttpRequest request() {
+            return null;
+        }
+
+        @Override
+        public Optional<HttpResponse<String>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return URI.create(DOCUMENT_URI);
+        }
+
+        @Override
+        public Version version() {
+            return Version.HTTP_1_1;
+        }
+    }
+
+    /**
+     * Answers every request for the document with the current response.
+     */
+    private static class StubHttpClient extends OpenIdHttpClient {
+
+        final AtomicInteger requests = new AtomicInteger();
+        volatile HttpResponse<String> response;
+        volatile CountDownLatch release;
+
+        @Override
+        public HttpResponse<String> get(String uri, String accept, String authorization) {
+            Assert.assertEquals(DOCUMENT_URI, uri);
+            requests.incrementAndGet();
+
+            if (release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            return response;
+        }
+    }
+
+    private final StubHttpClient httpClient = new StubHttpClient();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ProviderMetadataController controller =
+        new ProviderMetadataController(httpClient, Duration.ofSeconds(60), Duration.ofDays(1), executor);
+
+    @After
+    public void shutdown() {
+        controller.destroy();
+    }
+
+    private static HttpResponse<String> document(String issuer, String... cacheControl) {
+        return new StubResponse(200, "{\"issuer\": \"" + issuer + "\"}", cacheControl);
+    }
+
+    private void awaitBackgroundRefresh() throws Exception {
+        executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void maxAgeIsTheTimeToLive() {
+        Assert.assertEquals(Duration.ofSeconds(300), controller.getTimeToLive(document("a", "max-age=300")));
+        Assert.assertEquals(Duration.ofSeconds(300), controller.getTimeToLive(document("a", "public, Max-Age=300")));
+        Assert.assertEquals(Duration.ofDays(1), controller.getTimeToLive(document("a")));
+    }
+
+    @Test
+    public void noCacheAndNoStoreWinOverMaxAge() {
+        Assert.assertEquals(Duration.ofSeconds(60), controller.getTimeToLive(document("a", "max-age=300, no-cache")));
+        Assert.assertEquals(Duration.ofSeconds(60), controller.getTimeToLive(document("a", "no-store, max-age=300")));
+        Assert.assertEquals(Duration.ofSeconds(60), controller.getTimeToLive(document("a", "max-age=300", "no-cache")));
+    }
+
+    @Test
+    public void quotedMaxAgeIsAcceptedAndInvalidMaxAgeIsIgnored() {
+        Assert.assertEquals(Duration.ofSeconds(300), controller.getTimeToLive(document("a", "max-age=\"300\"")));
+        Assert.assertEquals(Duration.ofDays(1), controller.getTimeToLive(document("a", "max-age=soon")));
+        Assert.assertEquals(Duration.ofDays(1), controller.getTimeToLive(document("a", "max-age=")));
+    }
+
+    @Test
+    public void timeToLiveIsClampedToTheConfiguredBounds() {
+        Assert.assertEquals(Duration.ofSeconds(60), controller.getTimeToLive(document("a", "max-age=0")));
+        Assert.assertEquals(Duration.ofSeconds(60), controller.getTimeToLive(document("a", "max-age=-5")));
+        Assert.assertEquals(Duration.ofDays(1), controller.getTimeToLive(document("a", "max-age=31536000")));
+    }
+
+    @Test
+    public void documentIsKeptUntilItExpires() {
+        httpClient.response = document("a", "max-age=300");
+
+        JsonObject document = controller.getDocument(PROVIDER_URI);
+        Assert.assertEquals("a", document.getString("issuer"));
+        Assert.assertSame(document, controller.getDocument(PROVIDER_URI));
+        Assert.assertSame(document, controller.getDocument(DOCUMENT_URI));
+        Assert.assertEquals(1, httpClient.requests.get());
+    }
+
+    @Test
+    public void failedFirstLoadIsNotRemembered() {
+        httpClient.response = new StubResponse(503, "");
+
+        for (int i = 1; i <= 2; i++) {
+            try {
+                controller.getDocument(PROVIDER_URI);
+                Assert.fail("Expected the load to fail");
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            Assert.assertEquals(i, httpClient.requests.get());
+        }
+    }
+
+    @Test
+    public void failedRefreshKeepsTheStaleDocumentForTheMinimumTime() throws Exception {
+        ProviderMetadataController controller =
+            new ProviderMetadataController(httpClient, Duration.ofSeconds(1), Duration.ofDays(1), executor);
+
+        httpClient.response = document("a", "no-cache");
+        JsonObject document = controller.getDocument(PROVIDER_URI);
+
+        Thread.sleep(1100);
+
+        // The expired document is served while it's refreshed in the background
+        httpClient.response = new StubResponse(503, "");
+        Assert.assertSame(document, controller.getDocument(PROVIDER_URI));
+        awaitBackgroundRefresh();
+        Assert.assertEquals(2, httpClient.requests.get());
+
+        Assert.assertSame(document, controller.getDocument(PROVIDER_URI));
+        awaitBackgroundRefresh();
+        Assert.assertEquals(2, httpClient.requests.get());
+
+        Thread.sleep(1100);
+
+        httpClient.response = document("b", "no-cache");
+        Assert.assertSame(document, controller.getDocument(PROVIDER_URI));
+        awaitBackgroundRefresh();
+        Assert.assertEquals(3, httpClient.requests.get());
+
+        Assert.assertEquals("b", controller.getDocument(PROVIDER_URI).getString("issuer"));
+    }
+
+    @Test
+    public void concurrentFirstLoadsShareOneFetch() throws Exception {
+        int requests = 8;
+        ExecutorService requestExecutor = Executors.newFixedThreadPool(requests);
+        httpClient.response = document("a", "max-age=300");
+        httpClient.release = new CountDownLatch(1);
+
+        try {
+            List<Future<JsonObject>> documents = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                documents.add(requestExecutor.submit(() -> controller.getDocument(PROVIDER_URI)));
+            }
+
+            // Give all requests the time to find the running fetch
+            Thread.sleep(200);
+            httpClient.release.countDown();
+
+            JsonObject document = documents.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<JsonObject> other : documents) {
+                Assert.assertSame(document, other.get(10, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, httpClient.requests.get());
+        } finally {
+            requestExecutor.shutdownNow();
+        }
+    }
+}
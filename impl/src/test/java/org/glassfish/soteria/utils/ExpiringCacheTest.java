@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+package org.glassfish.soteria.utils;
+
+import java.time.Duration;
+
+import org.glassfish.soteria.utils.ExpiringCache.EvictionPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExpiringCacheTest {
+
+    private static final Duration ONE_MINUTE = Duration.ofMinutes(1);
+
+    @Test
+    public void getReturnsStoredValue() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("a", "1", ONE_MINUTE);
+
+        Assert.assertEquals("1", cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void expiredValueIsNotReturned() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("a", "1", Duration.ofMillis(1));
+
+        Thread.sleep(5);
+
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void zeroTimeToLiveIsNotStored() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("a", "1", Duration.ZERO);
+
+        Assert.assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, EvictionPolicy.LRU);
+        cache.put("a", "1", ONE_MINUTE);
+        cache.put("b", "2", ONE_MINUTE);
+        cache.get("a");
+        cache.put("c", "3", ONE_MINUTE);
+
+        Assert.assertEquals("1", cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    public void firstAddedIsEvicted() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, EvictionPolicy.FIFO);
+        cache.put("a", "1", ONE_MINUTE);
+        cache.put("b", "2", ONE_MINUTE);
+        cache.get("a");
+        cache.put("c", "3", ONE_MINUTE);
+
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals("2", cache.get("b"));
+        Assert.assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    public void removeIfRemovesMatchingEntries() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("a", "1", ONE_MINUTE);
+        cache.put("b", "2", ONE_MINUTE);
+
+        cache.removeIf((key, value) -> value.equals("2"));
+
+        Assert.assertEquals("1", cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+    }
+
+}